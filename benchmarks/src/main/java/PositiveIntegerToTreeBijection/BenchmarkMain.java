@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with JMH's command line options, defaulting to the GC profiler,
+ * which reports allocation rates, and to JSON results in jmh-result.json, 
+ * so that runs of different versions can be compared.
+ * @author Peter Cappello
+ */
+public final class BenchmarkMain 
+{
+    static private final String DEFAULT_RESULT_FILE = "jmh-result.json";
+    
+    private BenchmarkMain() {}
+    
+    public static void main( String[] args ) throws CommandLineOptionException, IOException, RunnerException
+    {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions( args );
+        if ( commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListProfilers() )
+        {
+            org.openjdk.jmh.Main.main( args );
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent( commandLineOptions );
+        if ( commandLineOptions.getProfilers().isEmpty() )
+        {
+            options = options.addProfiler( GCProfiler.class );
+        }
+        if ( ! commandLineOptions.getResultFormat().hasValue() )
+        {
+            options = options.resultFormat( ResultFormatType.JSON );
+        }
+        if ( ! commandLineOptions.getResult().hasValue() )
+        {
+            options = options.result( DEFAULT_RESULT_FILE );
+        }
+        new Runner( options.build() ).run();
+    }
+}
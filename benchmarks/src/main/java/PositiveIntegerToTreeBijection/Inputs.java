@@ -0,0 +1,42 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+/**
+ * Representative integers for the benchmarks.
+ * @author Peter Cappello
+ */
+public enum Inputs 
+{
+    /** Products of small primes: many, small factors. */
+    SMOOTH( 720720, 9699690, 2 * 3 * 5 * 7 * 11 * 13 * 17, 3 << 18, 3 * 3 * 3 * 5 * 5 * 7 * 11 * 13, 960960, 997920, 589824 ),
+    /** Primes near 10^6: 1 large factor, whose rank is large. */
+    PRIME( 999983, 999979, 999961, 999959, 999953, 999931, 999917, 999907 ),
+    /** Powers of a prime. */
+    PRIME_POWER( 1 << 20, 531441, 390625, 823543, 161051, 371293, 83521, 130321 );
+    
+    final int[] values;
+    
+    Inputs( int... values ) { this.values = values; }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups in the prime table, once it holds the primes looked up: 
+ * 1 at a time, and in batches of LOOKUPS, whose times are per lookup.
+ * @author Peter Cappello
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PrimeTableBenchmark 
+{
+    static private final int LOOKUPS = 1 << 10;
+    
+    @Param( { "1000", "100000", "1000000" } )
+    int maxRank;
+    
+    private final int[] ranks = new int[ LOOKUPS ];
+    private final int[] primes = new int[ LOOKUPS ];
+    private int[] sortedPrimes;
+    private final int[] out = new int[ LOOKUPS ];
+    private int next;
+    
+    @Setup
+    public void setUp()
+    {
+        Tree.initialize();
+        Tree.prime( maxRank ); // grow the table once, outside of measurement.
+        final Random random = new Random( maxRank );
+        for ( int i = 0; i < LOOKUPS; i++ )
+        {
+            ranks[ i ] = 1 + random.nextInt( maxRank );
+            primes[ i ] = Tree.prime( ranks[ i ] );
+        }
+        sortedPrimes = primes.clone();
+        Arrays.sort( sortedPrimes );
+    }
+    
+    @Benchmark
+    public int prime() { return Tree.prime( ranks[ next++ & ( LOOKUPS - 1 ) ] ); }
+    
+    @Benchmark
+    public int rank() { return Tree.rank( primes[ next++ & ( LOOKUPS - 1 ) ] ); }
+    
+    @Benchmark
+    @OperationsPerInvocation( LOOKUPS )
+    public int[] primeBatch() 
+    { 
+        Tree.prime( ranks, out ); 
+        return out;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation( LOOKUPS )
+    public int[] rankBatch() 
+    { 
+        Tree.rank( primes, out ); 
+        return out;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation( LOOKUPS )
+    public int[] rankSortedBatch() 
+    { 
+        Tree.rank( sortedPrimes, out ); 
+        return out;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The prime sieve's kernels, scalar and vector, sieving 1 segment that 
+ * starts at from: the whole sieve, and its pre-sieve alone. 
+ * The vector kernel needs JDK 17 or later, where the vector profile compiles it.
+ * @author Peter Cappello
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector" )
+@State( Scope.Thread )
+public class SieveBenchmark 
+{
+    static private final int BASE_PRIME_COUNT = 5000; // the largest, 48611, exceeds the square root of Integer.MAX_VALUE
+    
+    @Param( { "scalar", "vector" } )
+    String kernel;
+    
+    @Param( { "1000000", "100000000", "2000000000" } )
+    int from;
+    
+    private PrimeSieve sieve;
+    private final int[] basePrimes = new int[ BASE_PRIME_COUNT + 1 ];
+    private final long[] segment = new long[ PrimeSieve.SEGMENT_WORDS ];
+    private int primeCount;
+    
+    @Setup
+    public void setUp()
+    {
+        sieve = kernel.equals( "scalar" ) ? new PrimeSieve() : PrimeSieve.create();
+        if ( kernel.equals( "vector" ) && sieve.getClass() == PrimeSieve.class )
+        {
+            throw new IllegalStateException( "The vector kernel is unavailable." );
+        }
+        basePrimes[ 0 ] = 1;
+        for ( int rank = 1; rank <= BASE_PRIME_COUNT; rank++ )
+        {
+            basePrimes[ rank ] = Tree.prime( rank );
+        }
+    }
+    
+    @Benchmark
+    public int sieveSegment() 
+    { 
+        primeCount = 0;
+        sieve.sieveSegment( from, basePrimes, BASE_PRIME_COUNT, prime -> primeCount++ );
+        return primeCount;
+    }
+    
+    @Benchmark
+    public long[] preSieve()
+    {
+        sieve.preSieve( segment, ( from / 2 ) >>> 6 );
+        return segment;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Factorization, tree construction, and the views of trees, 
+ * over smooth numbers, primes, and prime powers.
+ * @author Peter Cappello
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = "-Djava.awt.headless=true" )
+@State( Scope.Thread )
+public class TreeBenchmark 
+{
+    @Param( { "SMOOTH", "PRIME", "PRIME_POWER" } )
+    Inputs inputs;
+    
+    private int[] values;
+    private Tree[] trees;
+    private int next;
+    
+    @Setup
+    public void setUp()
+    {
+        Tree.initialize();
+        values = inputs.values;
+        trees = new Tree[ values.length ];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            trees[ i ] = new Tree( values[ i ] ); // grows the prime table outside of measurement.
+        }
+    }
+    
+    private int nextIndex() { return next = ( next + 1 ) % values.length; }
+    
+    @Benchmark
+    public List<Integer> primeFactors() { return Tree.primeFactors( values[ nextIndex() ] ); }
+    
+    @Benchmark
+    public Tree newTree() { return new Tree( values[ nextIndex() ] ); }
+    
+    @Benchmark
+    public String getStringView() { return trees[ nextIndex() ].getStringView(); }
+    
+    @Benchmark
+    public BufferedImage getTreeView() { return TreeRenderer.getTreeView( trees[ nextIndex() ] ); }
+    
+    @Benchmark
+    public BufferedImage getCircularTreeView() { return TreeRenderer.getCircularTreeView( trees[ nextIndex() ] ); }
+    
+    @Benchmark
+    public BufferedImage getPlanetsView() { return TreeRenderer.getPlanetsView( trees[ nextIndex() ] ); }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.function.IntConsumer;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The sieve kernel that uses the Java Vector API (jdk.incubator.vector), 
+ * which must be added at run time: java --add-modules jdk.incubator.vector. 
+ * It is compiled only by a JDK that has the module (see build.xml); 
+ * PrimeSieve.create() falls back to the scalar kernel when it is unavailable.
+ * <ul>
+ * <li> pre-sieve: the pattern words are OR-ed a vector at a time.</li>
+ * <li> harvest: the bitmap is inverted a vector at a time, and a vector whose 
+ *      words are all composite is skipped, testing its lanes together; 
+ *      the primes of the other words are extracted with Long.numberOfTrailingZeros. 
+ *      (JDK 17's API has neither a lanewise bit count nor compress.)</li>
+ * </ul>
+ * @author Peter Cappello
+ */
+final class VectorPrimeSieve extends PrimeSieve
+{
+    static private final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    
+    VectorPrimeSieve()
+    {
+        if ( SEGMENT_WORDS % SPECIES.length() != 0 )
+        {
+            throw new UnsupportedOperationException( "The segment is not a whole number of " + SPECIES + " vectors." );
+        }
+    }
+    
+    @Override
+    void preSieve( long[] segment, long firstWord )
+    {
+        final int offset0 = (int) ( firstWord % PERIODS[ 0 ] );
+        final int offset1 = (int) ( firstWord % PERIODS[ 1 ] );
+        final long[] pattern0 = PATTERNS[ 0 ];
+        final long[] pattern1 = PATTERNS[ 1 ];
+        for ( int w = 0; w < segment.length; w += SPECIES.length() )
+        {
+            LongVector.fromArray( SPECIES, pattern0, offset0 + w )
+                      .or( LongVector.fromArray( SPECIES, pattern1, offset1 + w ) )
+                      .intoArray( segment, w );
+        }
+    }
+    
+    @Override
+    void harvest( long[] segment, long firstWord, long firstIndex, long lastIndex, IntConsumer consumer )
+    {
+        for ( int w = 0; w < segment.length; w += SPECIES.length() )
+        {
+            final LongVector primeBits = LongVector.fromArray( SPECIES, segment, w ).not();
+            if ( ! primeBits.compare( VectorOperators.NE, 0L ).anyTrue() )
+            {
+                continue;
+            }
+            primeBits.intoArray( segment, w );
+            for ( int lane = w; lane < w + SPECIES.length(); lane++ )
+            {
+                harvestWord( segment[ lane ], firstWord + lane, firstIndex, lastIndex, consumer );
+            }
+        }
+    }
+}
@@ -23,60 +23,173 @@
  */
 package PositiveIntegerToTreeBijection;
 
+import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JPanel;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
 
 /**
- * 
+ * Animates the planetary view of a tree. 
+ * A dedicated render thread steps the PlanetSystem and draws each frame into 
+ * a back buffer; finished frames are handed to the event dispatch thread 
+ * through a pending buffer, which it swaps with the buffer it displays 
+ * (triple buffering). Neither thread waits for the other: 
+ * a pending frame that is replaced before it is displayed is dropped.
+ * Each animated tree has its own render thread, PlanetSystem, and back buffer; 
+ * a render thread that is stopped may finish its frame, but only the current one 
+ * publishes frames, so a new animation never shares state with the one it replaces.
  * @author Peter Cappello
  */
-public class Animation extends JPanel implements ActionListener 
+public class Animation extends JPanel 
 {
-    private static final int SLEEP_TIME = 20;
-    private Timer timer;
-    private Tree tree;
+    private static final int SLEEP_TIME = 20; // ms per frame
     
-    public Animation() 
+    private final int size;
+    private final FrameMetrics frameMetrics = new FrameMetrics();
+    private final Object bufferLock = new Object();
+    
+    // buffers: each Renderer owns its back buffer; front is owned by the EDT.
+    private BufferedImage pending, front;
+    private boolean isPendingFresh;    // guarded by bufferLock
+    private boolean isRepaintQueued;   // guarded by bufferLock
+    private Renderer renderer;         // the one that publishes frames; guarded by bufferLock
+    
+    private ScheduledExecutorService renderThread;
+    
+    public Animation() { this( Viewer.IMAGE_VIEWPORT_SIZE ); }
+    
+    /**
+     * @param size width and height in pixels of the animation's frames.
+     */
+    Animation( int size ) 
     {
-      timer = new Timer( SLEEP_TIME, this );
-//      timer.start();
+        this.size = size;
+        pending = newBuffer();
+        front   = newBuffer();
     }
+    
+    private BufferedImage newBuffer() { return new BufferedImage( size, size, BufferedImage.TYPE_INT_RGB ); }
 
     @Override
-    public void paint( Graphics graphics ) 
+    public void paintComponent( Graphics graphics ) 
     {
-      super.paintComponent( graphics );
-//      tree.viewPlanets( graphics );
+        super.paintComponent( graphics );
+        long startTime = System.nanoTime();
+        final boolean isNewFrame;
+        synchronized ( bufferLock )
+        {
+            isRepaintQueued = false;
+            isNewFrame = isPendingFresh;
+            if ( isPendingFresh )
+            {
+                BufferedImage swap = front; front = pending; pending = swap;
+                isPendingFresh = false;
+            }
+        }
+        graphics.drawImage( front, 0, 0, this );
+        if ( isNewFrame )
+        {
+            frameMetrics.recordPresent( System.nanoTime() - startTime );
+        }
     }
-
-    @Override
-    public void actionPerformed( ActionEvent unused ) { repaint(); }
     
     /**
-     * Not provably thread-safe. Stops sending repaint events for SLEEP_TIME ms.
-     * Then sets tree to new tree. Then restarts timer.  There is no guarantee 
-     * that previously sent events (which reference tree) have completed. If not,
-     * there could be a race condition on tree.
-     * 
-     * To make it thread-safe, synchronize all references to tree.
-     * @param tree 
+     * Stop animating the current tree, if any, and start animating tree.
+     * The PlanetSystem is compiled on the calling thread; 
+     * thereafter, it is accessed only by the new render thread.
+     * @param tree to be animated
      */
     void newAnimation( Tree tree ) 
     { 
-        timer.stop();
-        this.tree = tree;
-//        timer.start();
-        timer = new Timer( SLEEP_TIME, this );
-        timer.restart();
+        stop();
+        final Renderer newRenderer = new Renderer( new PlanetSystem( tree ) );
+        synchronized ( bufferLock )
+        {
+            renderer = newRenderer;
+        }
+        renderThread = Executors.newSingleThreadScheduledExecutor( runnable -> 
+        {
+            Thread thread = new Thread( runnable, "Animation render thread" );
+            thread.setDaemon( true );
+            return thread;
+        });
+        renderThread.scheduleAtFixedRate( newRenderer::renderFrame, 0, SLEEP_TIME, TimeUnit.MILLISECONDS );
     }
     
-//    void newTimer() 
-//    { 
-//        timer.stop(); 
-//        timer = new Timer( SLEEP_TIME, this );
-//        timer.restart();
-//    }
+    /**
+     * Stop the render thread. It does not wait for a frame in progress, which is 
+     * then not published. Frames already handed to the EDT remain displayed.
+     */
+    void stop()
+    {
+        synchronized ( bufferLock )
+        {
+            renderer = null;
+        }
+        if ( renderThread != null )
+        {
+            renderThread.shutdownNow();
+            renderThread = null;
+        }
+    }
+    
+    /**
+     * The frame timings of this animation.
+     * @return the frame timings of this animation.
+     */
+    FrameMetrics frameMetrics() { return frameMetrics; }
+    
+    /**
+     * The state of 1 animation, confined to its render thread.
+     */
+    private final class Renderer
+    {
+        private final PlanetSystem planetSystem;
+        private BufferedImage back = newBuffer();
+        
+        Renderer( PlanetSystem planetSystem ) { this.planetSystem = planetSystem; }
+        
+        /**
+         * Invoked on the render thread: simulate, render into back buffer, publish it, 
+         * unless this renderer has been replaced.
+         */
+        void renderFrame()
+        {
+            long startTime = System.nanoTime();
+            planetSystem.step();
+            long simulatedTime = System.nanoTime();
+
+            Graphics2D graphics = back.createGraphics();
+            graphics.setColor( Color.WHITE );
+            graphics.fillRect( 0, 0, size, size );
+            planetSystem.draw( new GraphicsSurface( graphics ) );
+            graphics.dispose();
+            long renderedTime = System.nanoTime();
+
+            final boolean isDropped;
+            final boolean isRepaintNeeded;
+            synchronized ( bufferLock )
+            {
+                if ( this != renderer )
+                {
+                    return; // stopped: its frames are no longer displayed
+                }
+                isDropped = isPendingFresh;
+                BufferedImage swap = pending; pending = back; back = swap;
+                isPendingFresh = true;
+                isRepaintNeeded = ! isRepaintQueued;
+                isRepaintQueued = true;
+            }
+            frameMetrics.recordFrame( simulatedTime - startTime, renderedTime - simulatedTime, isDropped );
+            if ( isRepaintNeeded )
+            {
+                SwingUtilities.invokeLater( Animation.this::repaint );
+            }
+        }
+    }
 }
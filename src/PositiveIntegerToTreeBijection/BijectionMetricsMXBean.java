@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.Map;
+
+/**
+ * The runtime metrics of the bijection engine, registered as 
+ * PositiveIntegerToTreeBijection:type=BijectionMetrics when instrumentation is enabled.
+ * @author Peter Cappello
+ */
+public interface BijectionMetricsMXBean 
+{
+    /**
+     * Counters, by name: primeCount, primeTableGrowths, factorizations, 
+     * treesConstructed, renders, and any gauges, such as the shared render cache's hits and misses.
+     * @return the counters
+     */
+    Map<String, Long> getCounters();
+    
+    /**
+     * A summary of each histogram, by name: its count, mean, percentiles and maximum.
+     * Percentiles are upper bounds of power-of-2 buckets.
+     * @return the histogram summaries
+     */
+    Map<String, String> getHistograms();
+    
+    /**
+     * The buckets of a histogram: bucket i counts the values in [2^(i-1), 2^i); bucket 0 counts 0.
+     * @param name of the histogram
+     * @return its buckets, or an empty array if there is no such histogram
+     */
+    long[] histogramBuckets( String name );
+    
+    /**
+     * Zero the counters and histograms. The prime count is not a counter; it is unaffected.
+     */
+    void reset();
+}
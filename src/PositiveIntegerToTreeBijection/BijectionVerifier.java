@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verifies the bijection over [1, N]: for every n, it builds τ(n) and checks that
+ * <ol>
+ * <li> the tree is labeled n,</li>
+ * <li> τ⁻¹(τ(n)) = n, where τ⁻¹ is computed from the tree's shape alone (TreeCodec.integer), and</li>
+ * <li> the tree's canonical signature, which is the same for isomorphic trees, decodes to n.</li>
+ * </ol>
+ * Since decoding is a function, 3 implies that no 2 integers have isomorphic trees: τ is injective.
+ * <p>
+ * The range is verified by fork-join tasks on all cores. Memory does not grow during 
+ * the run: trees are discarded once checked, at most MAX_REPORTED_FAILURES failures 
+ * are kept, and the prime table is grown once, before verifying, to the primes &le; N, 
+ * which are the only primes that the checks look up; thereafter, lookups do not lock. 
+ * The table is an int[] whose length is the power of 2 above π(N) &asymp; N / ln N, 
+ * and growing it briefly holds a copy of half that size; e.g., 
+ * N = 10^8 needs 32 MB (π(N) = 5,761,455), N = 10^9 needs 256 MB (π(N) = 50,847,534), 
+ * and N = 2^31 - 2 needs 512 MB, so the heap must exceed 1.5 times that. 
+ * Progress and throughput are logged periodically.
+ * </p>
+ * @author Peter Cappello
+ */
+public final class BijectionVerifier 
+{
+    static private final int LEAF_SIZE = 1 << 12; // integers verified by a task without forking
+    static private final int MAX_REPORTED_FAILURES = 20;
+    static private final long PROGRESS_PERIOD = 10; // seconds
+    
+    private final int size;
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Usage: BijectionVerifier N [threads]
+     * @param args N, and the number of threads, which defaults to the number of cores.
+     */
+    public static void main( String[] args )
+    {
+        if ( args.length < 1 )
+        {
+            System.err.println( "Usage: BijectionVerifier N [threads]" );
+            System.exit( 2 );
+        }
+        final int size = Integer.parseInt( args[ 0 ] );
+        final int nThreads = ( args.length > 1 ) ? Integer.parseInt( args[ 1 ] ) : Runtime.getRuntime().availableProcessors();
+        Tree.initialize();
+        final BijectionVerifier verifier = new BijectionVerifier( size );
+        final boolean passed = verifier.verify( nThreads );
+        verifier.failures.forEach( System.err::println );
+        System.exit( passed ? 0 : 1 );
+    }
+    
+    BijectionVerifier( int size )
+    {
+        if ( size < 1 || size == Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "N must be in [1, " + ( Integer.MAX_VALUE - 1 ) + "]: " + size );
+        }
+        this.size = size;
+    }
+    
+    /**
+     * Verify [1, N].
+     * @param nThreads the parallelism of the fork-join pool
+     * @return true if and only if every integer in [1, N] verified.
+     */
+    boolean verify( int nThreads )
+    {
+        final Logger logger = Logger.getLogger( getClass().getCanonicalName() );
+        final long startTime = System.nanoTime();
+        
+        // Grow the prime table to N up front: growth holds the table's lock, which would stall every task.
+        try
+        {
+            Tree.rank( size );
+        }
+        catch ( IllegalArgumentException notPrime ) {}
+        final long verifyStartTime = System.nanoTime();
+        logger.log( Level.INFO, "Prime table of {0} primes, {1} MB, in {2} ms.", 
+                    new Object[]{ Tree.primeCount(), Tree.primeTableBytes() >> 20, ( verifyStartTime - startTime ) / 1000000 } );
+        
+        ScheduledExecutorService progressReporter = Executors.newSingleThreadScheduledExecutor( runnable -> 
+        {
+            Thread thread = new Thread( runnable, "Verifier progress" );
+            thread.setDaemon( true );
+            return thread;
+        });
+        progressReporter.scheduleAtFixedRate( () -> logger.log( Level.INFO, "{0}", progress( verifyStartTime ) ), 
+                                              PROGRESS_PERIOD, PROGRESS_PERIOD, TimeUnit.SECONDS );
+        ForkJoinPool pool = new ForkJoinPool( nThreads );
+        try
+        {
+            pool.invoke( new Verification( 1, size + 1 ) );
+        }
+        finally
+        {
+            pool.shutdown();
+            progressReporter.shutdownNow();
+        }
+        logger.log( failed.sum() == 0 ? Level.INFO : Level.SEVERE, "Done. {0}", progress( verifyStartTime ) );
+        return failed.sum() == 0;
+    }
+    
+    private String progress( long startTime )
+    {
+        final long count = verified.sum();
+        final double seconds = ( System.nanoTime() - startTime ) / 1e9;
+        return String.format( "Verified %,d of %,d integers in %.1f s: %,.0f integers/s; %,d failures.", 
+                              count, size, seconds, count / Math.max( seconds, 1e-9 ), failed.sum() );
+    }
+    
+    /**
+     * Check 1 integer.
+     * @param n to be verified
+     * @return null if n verifies; otherwise, the reason that it does not.
+     */
+    static String check( int n )
+    {
+        try
+        {
+            final Tree tree = new Tree( n );
+            if ( tree.n() != n )
+            {
+                return n + ": its tree is labeled " + tree.n();
+            }
+            final int inverse = TreeCodec.integer( tree );
+            if ( inverse != n )
+            {
+                return n + ": the inverse of its tree is " + inverse;
+            }
+            final String signature = TreeCodec.toCanonicalParentheses( tree );
+            final int decoded = TreeCodec.fromParentheses( signature );
+            if ( decoded != n )
+            {
+                return n + ": its canonical signature " + signature + " decodes to " + decoded;
+            }
+            return null;
+        }
+        catch ( RuntimeException exception )
+        {
+            return n + ": " + exception;
+        }
+    }
+    
+    /**
+     * Verify the integers in [from, to).
+     */
+    private final class Verification extends RecursiveAction
+    {
+        private final int from, to;
+        
+        Verification( int from, int to )
+        {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if ( to - from > LEAF_SIZE )
+            {
+                final int middle = from + ( to - from ) / 2;
+                invokeAll( new Verification( from, middle ), new Verification( middle, to ) );
+                return;
+            }
+            for ( int n = from; n < to; n++ )
+            {
+                final String failure = check( n );
+                if ( failure != null )
+                {
+                    failed.increment();
+                    if ( failed.sum() <= MAX_REPORTED_FAILURES )
+                    {
+                        failures.add( failure );
+                    }
+                }
+            }
+            verified.add( to - from );
+        }
+    }
+}
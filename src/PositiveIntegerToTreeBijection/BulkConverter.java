@@ -0,0 +1,562 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A headless, bulk converter: it reads whitespace-separated integers, 
+ * or tree encodings, and writes 1 line per token. An integer may be given in 
+ * factored form, e.g., 1000! or 2^4096*3^17 (see FactoredInteger); its tree is 
+ * encoded from its exponents, so it need not be an int.
+ * <pre>
+ * Usage: BulkConverter [-to parentheses|succinct|json|metrics|integer] [-threads k] [-range from to | file]
+ * </pre>
+ * <ul>
+ * <li> parentheses, succinct, json: the encoding of each integer's tree (see TreeCodec).</li>
+ * <li> metrics: "n height width nodeCount" for each integer.</li>
+ * <li> integer: the integer of each tree, encoded as parentheses or succinctly.</li>
+ * </ul>
+ * The input, the integers in [from, to], a file, or, by default, stdin, is read in chunks that are converted in parallel; 
+ * their outputs are written to stdout in input order. A token that cannot be converted
+ * yields the line "error: " followed by the reason, so output lines stay aligned with input tokens.
+ * @author Peter Cappello
+ */
+public final class BulkConverter 
+{
+    static private final int CHUNK_SIZE = 1 << 20; // bytes
+    static private final int RANGE_CHUNK_SIZE = 1 << 14; // integers
+    static private final byte[] ERROR = "error: ".getBytes( StandardCharsets.US_ASCII );
+    
+    enum Conversion { PARENTHESES, SUCCINCT, JSON, METRICS, INTEGER }
+    
+    private final Conversion conversion;
+    private final int nThreads;
+    
+    BulkConverter( Conversion conversion, int nThreads )
+    {
+        if ( nThreads < 1 )
+        {
+            throw new IllegalArgumentException( "nThreads must be positive." );
+        }
+        this.conversion = conversion;
+        this.nThreads = nThreads;
+    }
+    
+    public static void main( String[] args ) throws IOException, InterruptedException
+    {
+        Conversion conversion = Conversion.PARENTHESES;
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        String fileName = null;
+        int[] range = null;
+        for ( int i = 0; i < args.length; i++ )
+        {
+            switch ( args[ i ] )
+            {
+                case "-to":      conversion = Conversion.valueOf( args[ ++i ].toUpperCase() ); break;
+                case "-threads": nThreads = Integer.parseInt( args[ ++i ] ); break;
+                case "-range":   range = new int[]{ Integer.parseInt( args[ ++i ] ), Integer.parseInt( args[ ++i ] ) }; break;
+                default:         fileName = args[ i ];
+            }
+        }
+        Tree.initialize();
+        if ( range != null )
+        {
+            try ( WritableByteChannel out = new FileOutputStream( FileDescriptor.out ).getChannel() )
+            {
+                new BulkConverter( conversion, nThreads ).convert( range[ 0 ], range[ 1 ], out );
+            }
+            return;
+        }
+        try ( ReadableByteChannel in = ( fileName == null ) 
+                    ? new FileInputStream( FileDescriptor.in ).getChannel() 
+                    : FileChannel.open( Paths.get( fileName ), StandardOpenOption.READ );
+              WritableByteChannel out = new FileOutputStream( FileDescriptor.out ).getChannel() )
+        {
+            new BulkConverter( conversion, nThreads ).convert( in, out );
+        }
+    }
+    
+    /**
+     * Convert every token of in, writing the results to out.
+     * @param in the tokens
+     * @param out the results, 1 line per token
+     * @throws IOException if reading or writing fails
+     * @throws InterruptedException if interrupted while waiting for a chunk's conversion
+     */
+    void convert( ReadableByteChannel in, WritableByteChannel out ) throws IOException, InterruptedException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( CHUNK_SIZE );
+        convert( new ChunkSource()
+        {
+            private boolean endOfInput;
+            
+            @Override
+            public Callable<ByteSink> next() throws IOException
+            {
+                while ( ! endOfInput )
+                {
+                    endOfInput = fill( in, buffer );
+                    final byte[] chunk = nextChunk( buffer, endOfInput );
+                    if ( chunk.length > 0 )
+                    {
+                        return () -> convert( chunk );
+                    }
+                }
+                return null;
+            }
+        }, out );
+    }
+    
+    /**
+     * Convert every integer in [from, to], writing the results to out.
+     * @param from the least integer
+     * @param to the greatest integer
+     * @param out the results, 1 line per integer
+     * @throws IOException if writing fails
+     * @throws InterruptedException if interrupted while waiting for a chunk's conversion
+     */
+    void convert( int from, int to, WritableByteChannel out ) throws IOException, InterruptedException
+    {
+        if ( conversion == Conversion.INTEGER )
+        {
+            throw new IllegalArgumentException( "A range of integers cannot be converted to integers." );
+        }
+        convert( new ChunkSource()
+        {
+            private long next = from;
+            
+            @Override
+            public Callable<ByteSink> next()
+            {
+                if ( next > to )
+                {
+                    return null;
+                }
+                final int chunkFrom = (int) next;
+                final int chunkTo = (int) Math.min( to, next + RANGE_CHUNK_SIZE - 1 );
+                next = chunkTo + 1L;
+                return () -> convert( chunkFrom, chunkTo );
+            }
+        }, out );
+    }
+    
+    /**
+     * The chunks of an input, in order.
+     */
+    @FunctionalInterface
+    private interface ChunkSource
+    {
+        /** @return the conversion of the next chunk, or null if there is none. */
+        Callable<ByteSink> next() throws IOException;
+    }
+    
+    private void convert( ChunkSource chunks, WritableByteChannel out ) throws IOException, InterruptedException
+    {
+        final int pipelineDepth = 2 * nThreads;
+        ExecutorService executorService = Executors.newFixedThreadPool( nThreads );
+        Deque<Future<ByteSink>> pipeline = new ArrayDeque<>( pipelineDepth );
+        try
+        {
+            boolean endOfInput = false;
+            while ( ! endOfInput || ! pipeline.isEmpty() )
+            {
+                // keep the pipeline full
+                while ( ! endOfInput && pipeline.size() < pipelineDepth )
+                {
+                    final Callable<ByteSink> chunk = chunks.next();
+                    if ( chunk == null )
+                    {
+                        endOfInput = true;
+                    }
+                    else
+                    {
+                        pipeline.addLast( executorService.submit( chunk ) );
+                    }
+                }
+                if ( ! pipeline.isEmpty() )
+                {
+                    pipeline.removeFirst().get().writeTo( out );
+                }
+            }
+        }
+        catch ( ExecutionException executionException )
+        {
+            throw new IOException( "Converting a chunk failed.", executionException.getCause() );
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+    
+    /**
+     * Read until the buffer is full or the input ends.
+     * @return true if and only if the input ended
+     */
+    static private boolean fill( ReadableByteChannel in, ByteBuffer buffer ) throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            if ( in.read( buffer ) < 0 )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Remove from the buffer the bytes up to its last whitespace, or all of them at the end of input.
+     * The buffer is left ready for reading more input after the bytes that remain.
+     */
+    static private byte[] nextChunk( ByteBuffer buffer, boolean endOfInput ) throws IOException
+    {
+        buffer.flip();
+        int end = buffer.limit();
+        if ( ! endOfInput )
+        {
+            while ( end > 0 && ! isWhitespace( buffer.get( end - 1 ) ) )
+            {
+                end--;
+            }
+            if ( end == 0 )
+            {
+                throw new IOException( "A token is longer than " + CHUNK_SIZE + " bytes." );
+            }
+        }
+        byte[] chunk = new byte[ end ];
+        buffer.get( chunk );
+        buffer.compact();
+        return chunk;
+    }
+    
+    static private boolean isWhitespace( byte b ) { return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ','; }
+    
+    private ByteSink convert( byte[] chunk )
+    {
+        ByteSink sink = new ByteSink( 4 * chunk.length );
+        for ( int start = 0; start < chunk.length; )
+        {
+            if ( isWhitespace( chunk[ start ] ) )
+            {
+                start++;
+                continue;
+            }
+            int end = start;
+            while ( end < chunk.length && ! isWhitespace( chunk[ end ] ) )
+            {
+                end++;
+            }
+            final int mark = sink.size();
+            try
+            {
+                convert( chunk, start, end, sink );
+            }
+            catch ( IllegalArgumentException | ArithmeticException exception )
+            {
+                appendError( exception, mark, sink );
+            }
+            sink.append( '\n' );
+            start = end;
+        }
+        return sink;
+    }
+    
+    /**
+     * Replace the output of a token that could not be converted with an error line.
+     */
+    static private void appendError( RuntimeException exception, int mark, ByteSink sink )
+    {
+        sink.truncate( mark );
+        sink.append( ERROR ).append( String.valueOf( exception.getMessage() ) );
+    }
+    
+    private ByteSink convert( int from, int to )
+    {
+        ByteSink sink = new ByteSink( 16 * ( to - from + 1 ) );
+        for ( int n = from; ; n++ )
+        {
+            final int mark = sink.size();
+            try
+            {
+                convert( n, sink );
+            }
+            catch ( IllegalArgumentException | ArithmeticException exception )
+            {
+                appendError( exception, mark, sink );
+            }
+            sink.append( '\n' );
+            if ( n == to )
+            {
+                return sink;
+            }
+        }
+    }
+    
+    private void convert( byte[] chunk, int start, int end, ByteSink sink )
+    {
+        if ( conversion == Conversion.INTEGER )
+        {
+            final String tree = new String( chunk, start, end - start, StandardCharsets.US_ASCII );
+            sink.append( tree.indexOf( ':' ) < 0 ? TreeCodec.fromParentheses( tree ) : TreeCodec.fromSuccinct( tree ) );
+            return;
+        }
+        if ( isFactoredForm( chunk, start, end ) )
+        {
+            convert( FactoredInteger.parse( new String( chunk, start, end - start, StandardCharsets.US_ASCII ) ), sink );
+            return;
+        }
+        convert( parseInt( chunk, start, end ), sink );
+    }
+    
+    /**
+     * @throws IllegalArgumentException if n has no tree: it is 0, or its absolute value is not an int.
+     */
+    private void convert( int n, ByteSink sink ) throws IllegalArgumentException
+    {
+        if ( n == 0 || n == Integer.MIN_VALUE )
+        {
+            throw new IllegalArgumentException( n == 0 ? "0 has no tree." : n + " has no tree: its absolute value is not an int." );
+        }
+        try
+        {
+            switch ( conversion )
+            {
+                case PARENTHESES:
+                    TreeCodec.writeParentheses( n, sink );
+                    break;
+                case SUCCINCT:
+                    ByteSink parentheses = new ByteSink( 64 );
+                    TreeCodec.writeParentheses( n, parentheses );
+                    TreeCodec.writeSuccinct( parentheses, sink );
+                    break;
+                case JSON:
+                    TreeCodec.writeJson( n, sink );
+                    break;
+                case METRICS:
+                    final int[] metrics = TreeMetricsIndex.metrics( Math.abs( n ) );
+                    sink.append( n ).append( ' ' ).append( metrics[ 0 ] ).append( ' ' )
+                        .append( metrics[ 1 ] ).append( ' ' ).append( metrics[ 2 ] );
+                    break;
+                default: throw new AssertionError( conversion );
+            }
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a ByteSink does not throw it
+        }
+    }
+    
+    private void convert( FactoredInteger n, ByteSink sink )
+    {
+        try
+        {
+            switch ( conversion )
+            {
+                case PARENTHESES:
+                    TreeCodec.writeParentheses( n, sink );
+                    break;
+                case SUCCINCT:
+                    ByteSink parentheses = new ByteSink( 64 );
+                    TreeCodec.writeParentheses( n, parentheses );
+                    TreeCodec.writeSuccinct( parentheses, sink );
+                    break;
+                case JSON:
+                    TreeCodec.writeJson( n, sink );
+                    break;
+                case METRICS:
+                    final long[] metrics = TreeMetricsIndex.metrics( n );
+                    ( n.isInt() ? sink.append( n.intValue() ) : sink.append( '"' ).append( n.toString() ).append( '"' ) )
+                        .append( ' ' ).append( String.valueOf( metrics[ 0 ] ) ).append( ' ' )
+                        .append( String.valueOf( metrics[ 1 ] ) ).append( ' ' ).append( String.valueOf( metrics[ 2 ] ) );
+                    break;
+                default: throw new AssertionError( conversion );
+            }
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a ByteSink does not throw it
+        }
+    }
+    
+    static private boolean isFactoredForm( byte[] bytes, int start, int end )
+    {
+        for ( int i = start; i < end; i++ )
+        {
+            switch ( bytes[ i ] )
+            {
+                case '!': case '#': case '^': case '*': case '(': case ')': return true;
+                default: break;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Parse a decimal int, with an optional sign, whose absolute value is an int: 
+     * Integer.MIN_VALUE, which has no tree, is rejected.
+     * @throws IllegalArgumentException if the bytes are not such an int.
+     */
+    static int parseInt( byte[] bytes, int start, int end ) throws IllegalArgumentException
+    {
+        final boolean isNegative = bytes[ start ] == '-';
+        int i = ( isNegative || bytes[ start ] == '+' ) ? start + 1 : start;
+        if ( i == end )
+        {
+            throw new IllegalArgumentException( "Not an integer: " + new String( bytes, start, end - start, StandardCharsets.US_ASCII ) );
+        }
+        long value = 0;
+        for ( ; i < end; i++ )
+        {
+            final int digit = bytes[ i ] - '0';
+            if ( digit < 0 || digit > 9 || ( value = 10 * value + digit ) > 1L + Integer.MAX_VALUE )
+            {
+                throw new IllegalArgumentException( "Not an int: " + new String( bytes, start, end - start, StandardCharsets.US_ASCII ) );
+            }
+        }
+        if ( value > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( isNegative ? Integer.MIN_VALUE + " has no tree: its absolute value is not an int." 
+                                                           : "Not an int: " + new String( bytes, start, end - start, StandardCharsets.US_ASCII ) );
+        }
+        return (int) ( isNegative ? -value : value );
+    }
+    
+    /**
+     * A growable byte array, with ASCII formatting of ints that does not create Strings.
+     * As an Appendable, it stores each char as 1 byte, so it holds ASCII text only.
+     */
+    static private final class ByteSink implements Appendable, CharSequence
+    {
+        private byte[] bytes;
+        private int size;
+        
+        ByteSink( int capacity ) { bytes = new byte[ Math.max( 16, capacity ) ]; }
+        
+        int size() { return size; }
+        
+        void truncate( int size ) { this.size = size; }
+        
+        private void ensureCapacity( int capacity )
+        {
+            if ( capacity > bytes.length )
+            {
+                bytes = Arrays.copyOf( bytes, Math.max( capacity, 2 * bytes.length ) );
+            }
+        }
+        
+        @Override
+        public ByteSink append( CharSequence s ) { return append( s, 0, s.length() ); }
+        
+        @Override
+        public ByteSink append( CharSequence s, int start, int end )
+        {
+            ensureCapacity( size + end - start );
+            for ( int i = start; i < end; i++ )
+            {
+                bytes[ size++ ] = (byte) s.charAt( i );
+            }
+            return this;
+        }
+        
+        @Override
+        public int length() { return size; }
+        
+        @Override
+        public char charAt( int index ) { return (char) bytes[ index ]; }
+        
+        @Override
+        public CharSequence subSequence( int start, int end ) { return new String( bytes, start, end - start, StandardCharsets.US_ASCII ); }
+        
+        @Override
+        public ByteSink append( char c )
+        {
+            ensureCapacity( size + 1 );
+            bytes[ size++ ] = (byte) c;
+            return this;
+        }
+        
+        ByteSink append( byte[] b )
+        {
+            ensureCapacity( size + b.length );
+            System.arraycopy( b, 0, bytes, size, b.length );
+            size += b.length;
+            return this;
+        }
+        
+        ByteSink append( int value )
+        {
+            ensureCapacity( size + 11 );
+            long magnitude = value;
+            if ( magnitude < 0 )
+            {
+                bytes[ size++ ] = '-';
+                magnitude = -magnitude;
+            }
+            final int start = size;
+            do
+            {
+                bytes[ size++ ] = (byte) ( '0' + magnitude % 10 );
+                magnitude /= 10;
+            }
+            while ( magnitude > 0 );
+            for ( int i = start, j = size - 1; i < j; i++, j-- ) // the digits were appended in reverse
+            {
+                final byte digit = bytes[ i ];
+                bytes[ i ] = bytes[ j ];
+                bytes[ j ] = digit;
+            }
+            return this;
+        }
+        
+        void writeTo( WritableByteChannel out ) throws IOException
+        {
+            ByteBuffer buffer = ByteBuffer.wrap( bytes, 0, size );
+            while ( buffer.hasRemaining() )
+            {
+                out.write( buffer );
+            }
+        }
+    }
+}
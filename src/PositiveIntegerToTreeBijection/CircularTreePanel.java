@@ -0,0 +1,249 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JPanel;
+
+/**
+ * An interactive view of a circular tree: drag to pan; turn the mouse wheel to zoom;
+ * hover over a node for its integer, prime, and subtree size; click a node to 
+ * zoom into its subtree. Nodes are hit-tested via the layout's NodeIndex.
+ * Only the parts of the TreeLayout that intersect the visible tiles are drawn: 
+ * subtrees outside a tile are culled, and subtrees smaller than LOD_THRESHOLD 
+ * pixels are drawn as a single glyph. Rendered tiles are cached across 
+ * repaints, keyed by zoom level and tile position.
+ * @author Peter Cappello
+ */
+final class CircularTreePanel extends JPanel 
+{
+    static private final int TILE_SIZE = 256;       // pixels
+    static private final int TILE_CACHE_CAPACITY = 128;
+    static private final double ZOOM_STEP = 1.25;   // scale factor per zoom level
+    static private final int MIN_ZOOM_LEVEL = -40;
+    static private final int MAX_ZOOM_LEVEL = 16;
+    static private final double LOD_THRESHOLD = 3.0; // pixels
+    static private final double HIT_RADIUS = 4.0;    // pixels, minimum
+    
+    private final Map<Long, BufferedImage> tileCache = new LinkedHashMap<Long, BufferedImage>( 64, 0.75f, true )
+    {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Long, BufferedImage> eldest ) { return size() > TILE_CACHE_CAPACITY; }
+    };
+    private TreeLayout layout;
+    private int zoomLevel;
+    private int panX, panY;        // pixel, at current zoom, drawn at panel's upper left corner
+    private boolean isFitPending;  // fit layout to panel at next paint
+    private int dragX, dragY;
+    
+    CircularTreePanel()
+    {
+        MouseAdapter mouseAdapter = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed( MouseEvent mouseEvent ) 
+            { 
+                dragX = mouseEvent.getX(); 
+                dragY = mouseEvent.getY(); 
+            }
+
+            @Override
+            public void mouseDragged( MouseEvent mouseEvent )
+            {
+                panX -= mouseEvent.getX() - dragX;
+                panY -= mouseEvent.getY() - dragY;
+                dragX = mouseEvent.getX();
+                dragY = mouseEvent.getY();
+                repaint();
+            }
+
+            @Override
+            public void mouseClicked( MouseEvent mouseEvent )
+            {
+                final int node = nodeAt( mouseEvent.getX(), mouseEvent.getY() );
+                if ( node >= 0 )
+                {
+                    zoomTo( layout.x( node ), layout.y( node ), layout.extent( node ) );
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved( MouseWheelEvent mouseWheelEvent )
+            {
+                zoom( zoomLevel - mouseWheelEvent.getWheelRotation(), mouseWheelEvent.getX(), mouseWheelEvent.getY() );
+            }
+        };
+        addMouseListener( mouseAdapter );
+        addMouseMotionListener( mouseAdapter );
+        addMouseWheelListener( mouseAdapter );
+        setToolTipText( "" ); // register with the ToolTipManager
+    }
+    
+    /**
+     * The node under panel point (x, y).
+     * @param x panel x coordinate
+     * @param y panel y coordinate
+     * @return the node's index in the layout, or -1 if there is none.
+     */
+    int nodeAt( int x, int y )
+    {
+        if ( layout == null )
+        {
+            return -1;
+        }
+        final double scale = scale();
+        return layout.nodeIndex().nodeAt( ( panX + x ) / scale, ( panY + y ) / scale, 
+                                          Math.max( TreeLayout.RADIUS, HIT_RADIUS / scale ) );
+    }
+    
+    @Override
+    public String getToolTipText( MouseEvent mouseEvent )
+    {
+        final int node = nodeAt( mouseEvent.getX(), mouseEvent.getY() );
+        if ( node < 0 )
+        {
+            return null;
+        }
+        // a non-root node's integer is the rank of a prime factor of its parent's integer.
+        final int value = layout.value( node );
+        return "<html>integer: " + value 
+             + ( node == 0 ? "" : "<br>prime: " + Tree.prime( value ) + " (a factor of " + layout.value( layout.parent( node ) ) + ")" )
+             + "<br>subtree size: " + layout.subtreeSize( node ) + " nodes</html>";
+    }
+    
+    /**
+     * Display a layout, fitted to the panel.
+     * @param layout to be displayed
+     */
+    void treeLayout( TreeLayout layout )
+    {
+        this.layout = layout;
+        tileCache.clear();
+        isFitPending = true;
+        repaint();
+    }
+    
+    TreeLayout treeLayout() { return layout; }
+    
+    /**
+     * Pixels per layout unit at the current zoom level.
+     * @return pixels per layout unit
+     */
+    double scale() { return Math.pow( ZOOM_STEP, zoomLevel ); }
+    
+    /**
+     * Zoom, keeping the layout point under panel point (x, y) fixed.
+     * @param newZoomLevel the zoom level
+     * @param x panel x coordinate of zoom's fixed point
+     * @param y panel y coordinate of zoom's fixed point
+     */
+    void zoom( int newZoomLevel, int x, int y )
+    {
+        newZoomLevel = Math.max( MIN_ZOOM_LEVEL, Math.min( MAX_ZOOM_LEVEL, newZoomLevel ) );
+        final double layoutX = ( panX + x ) / scale();
+        final double layoutY = ( panY + y ) / scale();
+        zoomLevel = newZoomLevel;
+        panX = (int) Math.round( layoutX * scale() ) - x;
+        panY = (int) Math.round( layoutY * scale() ) - y;
+        repaint();
+    }
+    
+    /**
+     * Zoom, and pan, so that the layout's disk of radius extent about (layoutX, layoutY) 
+     * fills the panel.
+     * @param layoutX x coordinate of the disk's center, in layout units
+     * @param layoutY y coordinate of the disk's center, in layout units
+     * @param extent radius of the disk, in layout units
+     */
+    void zoomTo( double layoutX, double layoutY, double extent )
+    {
+        final double fit = Math.min( getWidth(), getHeight() ) / ( 2.0 * extent );
+        zoomLevel = Math.max( MIN_ZOOM_LEVEL, Math.min( MAX_ZOOM_LEVEL, (int) Math.floor( Math.log( fit ) / Math.log( ZOOM_STEP ) ) ) );
+        panX = (int) Math.round( layoutX * scale() ) - getWidth() / 2;
+        panY = (int) Math.round( layoutY * scale() ) - getHeight() / 2;
+        repaint();
+    }
+
+    @Override
+    public void paintComponent( Graphics graphics )
+    {
+        super.paintComponent( graphics );
+        if ( layout == null || getWidth() == 0 || getHeight() == 0 )
+        {
+            return;
+        }
+        if ( isFitPending )
+        {
+            isFitPending = false;
+            zoomTo( layout.width() / 2.0, layout.width() / 2.0, layout.width() / 2.0 );
+        }
+        final int firstTileX = Math.floorDiv( panX, TILE_SIZE ), lastTileX = Math.floorDiv( panX + getWidth()  - 1, TILE_SIZE );
+        final int firstTileY = Math.floorDiv( panY, TILE_SIZE ), lastTileY = Math.floorDiv( panY + getHeight() - 1, TILE_SIZE );
+        for ( int tileY = firstTileY; tileY <= lastTileY; tileY++ )
+        {
+            for ( int tileX = firstTileX; tileX <= lastTileX; tileX++ )
+            {
+                graphics.drawImage( tile( tileX, tileY ), tileX * TILE_SIZE - panX, tileY * TILE_SIZE - panY, this );
+            }
+        }
+    }
+    
+    private BufferedImage tile( int tileX, int tileY )
+    {
+        final long key = ( (long) ( zoomLevel & 0xFF ) << 56 ) | ( (long) ( tileX & 0xFFFFFFF ) << 28 ) | ( tileY & 0xFFFFFFF );
+        BufferedImage tile = tileCache.get( key );
+        if ( tile == null )
+        {
+            tile = renderTile( tileX, tileY );
+            tileCache.put( key, tile );
+        }
+        return tile;
+    }
+    
+    private BufferedImage renderTile( int tileX, int tileY )
+    {
+        final double scale = scale();
+        BufferedImage tile = new BufferedImage( TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB );
+        Graphics2D graphics = tile.createGraphics();
+        graphics.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
+        graphics.translate( -tileX * TILE_SIZE, -tileY * TILE_SIZE );
+        graphics.scale( scale, scale );
+        graphics.setStroke( new BasicStroke( (float) ( 1.0 / scale ) ) ); // 1 pixel wide
+        layout.draw( new GraphicsSurface( graphics ), 
+                tileX * TILE_SIZE / scale, tileY * TILE_SIZE / scale, 
+                ( tileX + 1 ) * TILE_SIZE / scale, ( tileY + 1 ) * TILE_SIZE / scale, 
+                scale, LOD_THRESHOLD );
+        graphics.dispose();
+        return tile;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+/**
+ * A smallest-prime-factor sieve of [1, size], which also ranks the primes in it:
+ * for composite n, factor[ n ] is its smallest prime factor; for prime p, factor[ p ] is -rank( p ).
+ * It factors any n in the range in O( number of prime factors ) time, and
+ * the rank of each prime factor of n is less than n, so is also in the range.
+ * @author Peter Cappello
+ */
+final class FactorSieve 
+{
+    private final int[] factor;
+    
+    /**
+     * Sieve [1, size].
+     * @param size the largest integer sieved.
+     */
+    FactorSieve( int size )
+    {
+        if ( size < 1 || size == Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "Sieve size must be in [1, " + ( Integer.MAX_VALUE - 1 ) + "]: " + size );
+        }
+        factor = new int[ size + 1 ];
+        int primeRank = 0;
+        for ( int n = 2; n <= size; n++ )
+        {
+            if ( factor[ n ] == 0 )
+            {
+                factor[ n ] = -( ++primeRank );
+                if ( (long) n * n <= size )
+                {
+                    for ( int multiple = n * n; multiple <= size; multiple += n )
+                    {
+                        if ( factor[ multiple ] == 0 )
+                        {
+                            factor[ multiple ] = n;
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    int size() { return factor.length - 1; }
+    
+    boolean isPrime( int n ) { return factor[ n ] < 0; }
+    
+    /**
+     * The smallest prime factor of n > 1.
+     * @param n in [2, size]
+     * @return the smallest prime factor of n
+     */
+    int smallestPrimeFactor( int n ) { return factor[ n ] < 0 ? n : factor[ n ]; }
+    
+    /**
+     * The rank of a prime: rank( 2 ) = 1, rank( 3 ) = 2, ...
+     * @param prime in [2, size]
+     * @return its rank
+     */
+    int rank( int prime ) { return -factor[ prime ]; }
+}
@@ -0,0 +1,533 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A nonzero integer, given by its sign and its prime factorization: 
+ * its distinct primes, in increasing order, and their exponents. 
+ * The integer itself need not be an int, nor is it ever computed, unless toBigInteger is called:
+ * the tree of an integer depends only on its factorization, so the trees of integers 
+ * such as 1000!, 2^4096*3^17, or 997#, which are known in factored form, 
+ * are constructed without factoring them (see Tree( FactoredInteger )).
+ * <p>
+ * Factored forms are parsed from expressions:
+ * </p>
+ * <pre>
+ * expression := [ '-' ] product
+ * product    := power { '*' power }
+ * power      := primary [ '^' int ]
+ * primary    := int [ '!' | '#' ] | '(' product ')'
+ * </pre>
+ * where k! is the factorial of k, whose exponents are computed by Legendre's formula, 
+ * and p# is the primorial of p: the product of the primes &le; p. 
+ * For example, "-2^10*3!", "1000!", "(6#)^3*7".
+ * @author Peter Cappello
+ */
+final class FactoredInteger 
+{
+    static final FactoredInteger ONE = new FactoredInteger( true, new int[ 0 ], new int[ 0 ] );
+    
+    private final boolean isPositive;
+    private final int[] primes;    // increasing
+    private final int[] exponents; // positive
+    
+    private FactoredInteger( boolean isPositive, int[] primes, int[] exponents )
+    {
+        this.isPositive = isPositive;
+        this.primes = primes;
+        this.exponents = exponents;
+    }
+    
+    //___________________________
+    //
+    // factories
+    //___________________________
+    /**
+     * The factored form of an int.
+     * @param n a nonzero int
+     * @return the factored form of n
+     * @throws IllegalArgumentException if n is 0.
+     */
+    static FactoredInteger of( int n ) throws IllegalArgumentException
+    {
+        if ( n == 0 )
+        {
+            throw new IllegalArgumentException( "0 has no tree." );
+        }
+        if ( n == Integer.MIN_VALUE )
+        {
+            return of( 2 ).pow( 31 ).negate();
+        }
+        Builder builder = new Builder();
+        for ( int primeFactor : Tree.primeFactors( Math.abs( n ) ) )
+        {
+            builder.add( primeFactor, 1 );
+        }
+        return builder.build( n > 0 );
+    }
+    
+    /**
+     * The positive integer with the given factorization.
+     * @param primeToExponent maps each prime factor to its exponent; exponents of 0 are ignored.
+     * @return the positive integer whose prime factorization is primeToExponent
+     * @throws IllegalArgumentException if a key is not a prime or an exponent is negative.
+     */
+    static FactoredInteger of( Map<Integer, Integer> primeToExponent ) throws IllegalArgumentException
+    {
+        Builder builder = new Builder();
+        for ( Map.Entry<Integer, Integer> entry : new TreeMap<>( primeToExponent ).entrySet() )
+        {
+            final int prime = entry.getKey();
+            final int exponent = entry.getValue();
+            if ( exponent < 0 )
+            {
+                throw new IllegalArgumentException( "The exponent of " + prime + " is negative: " + exponent );
+            }
+            if ( prime < 2 )
+            {
+                throw new IllegalArgumentException( prime + " is not a prime." );
+            }
+            Tree.rank( prime ); // throws IllegalArgumentException if prime is not a prime
+            if ( exponent > 0 )
+            {
+                builder.add( prime, exponent );
+            }
+        }
+        return builder.build( true );
+    }
+    
+    /**
+     * k!, whose exponent of each prime p &le; k is, by Legendre's formula, 
+     * the sum over i &ge; 1 of floor( k / p^i ).
+     * @param k a nonnegative int
+     * @return the factored form of k!
+     */
+    static FactoredInteger factorial( int k )
+    {
+        if ( k < 0 )
+        {
+            throw new IllegalArgumentException( "The factorial of a negative integer is undefined: " + k );
+        }
+        Builder builder = new Builder();
+        for ( int rank = 1, prime; rank <= Tree.MAX_PRIME_RANK && ( prime = Tree.prime( rank ) ) <= k; rank++ )
+        {
+            int exponent = 0;
+            for ( long power = prime; power <= k; power *= prime )
+            {
+                exponent += k / power;
+            }
+            builder.add( prime, exponent );
+        }
+        return builder.build( true );
+    }
+    
+    /**
+     * n#, the product of the primes &le; n.
+     * @param n a nonnegative int
+     * @return the factored form of n#
+     */
+    static FactoredInteger primorial( int n )
+    {
+        if ( n < 0 )
+        {
+            throw new IllegalArgumentException( "The primorial of a negative integer is undefined: " + n );
+        }
+        Builder builder = new Builder();
+        for ( int rank = 1, prime; rank <= Tree.MAX_PRIME_RANK && ( prime = Tree.prime( rank ) ) <= n; rank++ )
+        {
+            builder.add( prime, 1 );
+        }
+        return builder.build( true );
+    }
+    
+    /**
+     * Parse a factored form (see the class comment).
+     * @param expression to be parsed
+     * @return the integer that the expression denotes
+     * @throws IllegalArgumentException if the expression is malformed or denotes 0.
+     * @throws ArithmeticException if an exponent is not an int.
+     */
+    static FactoredInteger parse( String expression ) throws IllegalArgumentException, ArithmeticException
+    {
+        return parse( expression, Integer.MAX_VALUE );
+    }
+    
+    /**
+     * Parse a factored form that has at most maxPrimeCount distinct prime factors. 
+     * The bound is checked as the expression is parsed, so that, e.g., the factorial 
+     * of a large integer is rejected before its factorization is computed.
+     * @param expression to be parsed
+     * @param maxPrimeCount the greatest number of distinct prime factors accepted
+     * @return the integer that the expression denotes
+     * @throws IllegalArgumentException if the expression is malformed, denotes 0, 
+     * or has more than maxPrimeCount distinct prime factors.
+     * @throws ArithmeticException if an exponent is not an int.
+     */
+    static FactoredInteger parse( String expression, int maxPrimeCount ) throws IllegalArgumentException, ArithmeticException
+    {
+        return new Parser( expression, maxPrimeCount ).parse();
+    }
+    
+    //___________________________
+    //
+    // arithmetic
+    //___________________________
+    /**
+     * @param factor the multiplier
+     * @return this * factor
+     * @throws ArithmeticException if an exponent of the product is not an int.
+     */
+    FactoredInteger multiply( FactoredInteger factor ) throws ArithmeticException
+    {
+        Builder builder = new Builder();
+        int i = 0, j = 0;
+        while ( i < primes.length || j < factor.primes.length )
+        {
+            if ( j == factor.primes.length || ( i < primes.length && primes[ i ] < factor.primes[ j ] ) )
+            {
+                builder.add( primes[ i ], exponents[ i++ ] );
+            }
+            else if ( i == primes.length || factor.primes[ j ] < primes[ i ] )
+            {
+                builder.add( factor.primes[ j ], factor.exponents[ j++ ] );
+            }
+            else
+            {
+                builder.add( primes[ i ], Math.addExact( exponents[ i++ ], factor.exponents[ j++ ] ) );
+            }
+        }
+        return builder.build( isPositive == factor.isPositive );
+    }
+    
+    /**
+     * @param exponent a nonnegative int
+     * @return this ^ exponent
+     * @throws ArithmeticException if an exponent of the power is not an int.
+     */
+    FactoredInteger pow( int exponent ) throws ArithmeticException
+    {
+        if ( exponent < 0 )
+        {
+            throw new IllegalArgumentException( "A negative power of an integer is not an integer: " + exponent );
+        }
+        if ( exponent == 0 )
+        {
+            return ONE;
+        }
+        int[] powerExponents = new int[ exponents.length ];
+        for ( int i = 0; i < exponents.length; i++ )
+        {
+            powerExponents[ i ] = Math.multiplyExact( exponents[ i ], exponent );
+        }
+        return new FactoredInteger( isPositive || exponent % 2 == 0, primes, powerExponents );
+    }
+    
+    FactoredInteger negate() { return new FactoredInteger( ! isPositive, primes, exponents ); }
+    
+    //___________________________
+    //
+    // accessors
+    //___________________________
+    boolean isPositive() { return isPositive; }
+    
+    /** @return the number of distinct prime factors. */
+    int size() { return primes.length; }
+    
+    /** @return the i-th smallest distinct prime factor. */
+    int prime( int i ) { return primes[ i ]; }
+    
+    /** @return the exponent of the i-th smallest distinct prime factor. */
+    int exponent( int i ) { return exponents[ i ]; }
+    
+    /** @return the factorization, as a map from each prime factor to its exponent. */
+    SortedMap<Integer, Integer> toMap()
+    {
+        SortedMap<Integer, Integer> primeToExponent = new TreeMap<>();
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            primeToExponent.put( primes[ i ], exponents[ i ] );
+        }
+        return primeToExponent;
+    }
+    
+    /** @return true if and only if the integer is an int. */
+    boolean isInt()
+    {
+        long value = 1;
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            for ( int j = 0; j < exponents[ i ]; j++ )
+            {
+                value *= primes[ i ];
+                if ( value > 1L + Integer.MAX_VALUE )
+                {
+                    return false;
+                }
+            }
+        }
+        return value <= Integer.MAX_VALUE || ! isPositive;
+    }
+    
+    /**
+     * @return the integer
+     * @throws ArithmeticException if the integer is not an int.
+     */
+    int intValue() throws ArithmeticException
+    {
+        if ( ! isInt() )
+        {
+            throw new ArithmeticException( this + " is not an int." );
+        }
+        return toBigInteger().intValue();
+    }
+    
+    /**
+     * The integer itself, whose computation, for large integers, takes much 
+     * more time and space than its factored form.
+     * @return the integer
+     */
+    BigInteger toBigInteger()
+    {
+        BigInteger value = BigInteger.ONE;
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            value = value.multiply( BigInteger.valueOf( primes[ i ] ).pow( exponents[ i ] ) );
+        }
+        return isPositive ? value : value.negate();
+    }
+    
+    /**
+     * @return the canonical expression of the integer, e.g., "-2^3*3*5^2", or "1".
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder expression = new StringBuilder( isPositive ? "" : "-" );
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            expression.append( i == 0 ? "" : "*" ).append( primes[ i ] );
+            if ( exponents[ i ] > 1 )
+            {
+                expression.append( '^' ).append( exponents[ i ] );
+            }
+        }
+        return primes.length == 0 ? expression.append( '1' ).toString() : expression.toString();
+    }
+    
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( ! ( object instanceof FactoredInteger ) )
+        {
+            return false;
+        }
+        FactoredInteger that = (FactoredInteger) object;
+        return isPositive == that.isPositive && Arrays.equals( primes, that.primes ) && Arrays.equals( exponents, that.exponents );
+    }
+    
+    @Override
+    public int hashCode() { return ( isPositive ? 1 : -1 ) * ( 31 * Arrays.hashCode( primes ) + Arrays.hashCode( exponents ) ); }
+    
+    //___________________________
+    //
+    // construction
+    //___________________________
+    /**
+     * Accumulates ( prime, exponent ) pairs, given in increasing order of prime.
+     */
+    static private final class Builder
+    {
+        private int[] primes = new int[ 8 ];
+        private int[] exponents = new int[ 8 ];
+        private int size;
+        
+        void add( int prime, int exponent )
+        {
+            if ( size > 0 && primes[ size - 1 ] == prime )
+            {
+                exponents[ size - 1 ] = Math.addExact( exponents[ size - 1 ], exponent );
+                return;
+            }
+            if ( size == primes.length )
+            {
+                primes = Arrays.copyOf( primes, 2 * size );
+                exponents = Arrays.copyOf( exponents, 2 * size );
+            }
+            primes[ size ] = prime;
+            exponents[ size++ ] = exponent;
+        }
+        
+        FactoredInteger build( boolean isPositive )
+        {
+            return new FactoredInteger( isPositive, Arrays.copyOf( primes, size ), Arrays.copyOf( exponents, size ) );
+        }
+    }
+    
+    /**
+     * A recursive-descent parser of the grammar in the class comment; 
+     * whitespace between symbols is ignored.
+     */
+    static private final class Parser
+    {
+        private final String expression;
+        private final int maxPrimeCount;
+        private int position;
+        
+        Parser( String expression, int maxPrimeCount ) 
+        { 
+            this.expression = expression; 
+            this.maxPrimeCount = maxPrimeCount;
+        }
+        
+        FactoredInteger parse()
+        {
+            final boolean isNegative = accept( '-' );
+            FactoredInteger integer = product();
+            if ( peek() != -1 )
+            {
+                throw error( "unexpected '" + (char) peek() + "'" );
+            }
+            return isNegative ? integer.negate() : integer;
+        }
+        
+        private FactoredInteger product()
+        {
+            FactoredInteger product = power();
+            while ( accept( '*' ) )
+            {
+                product = checkPrimeCount( product.multiply( power() ) );
+            }
+            return product;
+        }
+        
+        private FactoredInteger power()
+        {
+            FactoredInteger base = primary();
+            return accept( '^' ) ? base.pow( integer() ) : base;
+        }
+        
+        private FactoredInteger primary()
+        {
+            if ( accept( '(' ) )
+            {
+                FactoredInteger product = product();
+                if ( ! accept( ')' ) )
+                {
+                    throw error( "')' expected" );
+                }
+                return product;
+            }
+            final int integer = integer();
+            if ( accept( '!' ) )
+            {
+                checkPrimesUpTo( integer );
+                return factorial( integer );
+            }
+            if ( accept( '#' ) )
+            {
+                checkPrimesUpTo( integer );
+                return primorial( integer );
+            }
+            if ( integer == 0 )
+            {
+                throw new IllegalArgumentException( "0 has no tree." );
+            }
+            return of( integer );
+        }
+        
+        private FactoredInteger checkPrimeCount( FactoredInteger integer )
+        {
+            if ( integer.size() > maxPrimeCount )
+            {
+                throw new IllegalArgumentException( "The factored form has more than " + maxPrimeCount + " distinct prime factors: " + expression );
+            }
+            return integer;
+        }
+        
+        /**
+         * Reject k, as the argument of k! or k#, if there are more than maxPrimeCount primes &le; k.
+         */
+        private void checkPrimesUpTo( int k )
+        {
+            if ( maxPrimeCount < Tree.MAX_PRIME_RANK && k >= Tree.prime( maxPrimeCount + 1 ) )
+            {
+                throw new IllegalArgumentException( "The factored form has more than " + maxPrimeCount + " distinct prime factors: " 
+                                                  + "more than that many primes are at most " + k + ": " + expression );
+            }
+        }
+        
+        private int integer()
+        {
+            peek();
+            final int start = position;
+            while ( position < expression.length() && Character.isDigit( expression.charAt( position ) ) )
+            {
+                position++;
+            }
+            if ( start == position )
+            {
+                throw error( "integer expected" );
+            }
+            try
+            {
+                return Integer.parseInt( expression.substring( start, position ) );
+            }
+            catch ( NumberFormatException exception )
+            {
+                throw error( "not an int: " + expression.substring( start, position ) );
+            }
+        }
+        
+        private boolean accept( char symbol )
+        {
+            if ( peek() == symbol )
+            {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        /** @return the next symbol, after skipping whitespace, or -1 at the end. */
+        private int peek()
+        {
+            while ( position < expression.length() && Character.isWhitespace( expression.charAt( position ) ) )
+            {
+                position++;
+            }
+            return position < expression.length() ? expression.charAt( position ) : -1;
+        }
+        
+        private IllegalArgumentException error( String reason )
+        {
+            return new IllegalArgumentException( "Malformed factored form at " + position + ", " + reason + ": " + expression );
+        }
+    }
+}
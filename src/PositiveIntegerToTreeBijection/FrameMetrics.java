@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+/**
+ * Per-frame timings of an animation: simulate and render times are recorded 
+ * by the render thread; present times by the event dispatch thread. 
+ * A frame that is rendered but replaced before it is presented is dropped.
+ * @author Peter Cappello
+ */
+final class FrameMetrics 
+{
+    static private final double NANOS_PER_MS = 1000000.0;
+    
+    // totals since the last report
+    private long frames;
+    private long presentedFrames;
+    private long droppedFrames;
+    private long simulateNanos;
+    private long renderNanos;
+    private long presentNanos;
+    
+    // totals since construction
+    private long totalFrames;
+    private long totalDroppedFrames;
+    
+    synchronized void recordFrame( long simulateNanos, long renderNanos, boolean droppedPrevious )
+    {
+        frames++;
+        totalFrames++;
+        this.simulateNanos += simulateNanos;
+        this.renderNanos += renderNanos;
+        if ( droppedPrevious )
+        {
+            droppedFrames++;
+            totalDroppedFrames++;
+        }
+    }
+    
+    synchronized void recordPresent( long presentNanos )
+    {
+        presentedFrames++;
+        this.presentNanos += presentNanos;
+    }
+    
+    synchronized long totalFrames() { return totalFrames; }
+    
+    synchronized long totalDroppedFrames() { return totalDroppedFrames; }
+    
+    /**
+     * Mean per-frame times and dropped frames since the previous report.
+     * @return a 1-line summary
+     */
+    synchronized String report()
+    {
+        String report = String.format( "frames: %d  dropped: %d  simulate: %.3f ms  render: %.3f ms  present: %.3f ms",
+                frames, droppedFrames, 
+                mean( simulateNanos, frames ), mean( renderNanos, frames ), mean( presentNanos, presentedFrames ) );
+        frames = presentedFrames = droppedFrames = simulateNanos = renderNanos = presentNanos = 0;
+        return report;
+    }
+    
+    static private double mean( long nanos, long count ) { return count == 0 ? 0.0 : nanos / NANOS_PER_MS / count; }
+}
@@ -23,38 +23,242 @@
  */
 package PositiveIntegerToTreeBijection;
 
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.IntFunction;
 
 /**
- *
+ * A game: a sequence of rounds, each of which asks for the integer that 
+ * corresponds to a displayed tree. 
+ * The questions of upcoming rounds are picked and rendered ahead of time,
+ * on a background pool, so that starting a round need not wait for rendering:
+ * whenNextReady tells when the next round's question is rendered.
  * @author Peter Cappello
  */
 public class Game 
 {
+    static private final int QUEUE_DEPTH = 3; // questions rendered ahead
+    static private final ExecutorService RENDER_POOL = Executors.newFixedThreadPool( 
+            Math.max( 1, Runtime.getRuntime().availableProcessors() / 2 ), runnable -> 
+            {
+                Thread thread = new Thread( runnable, "Game question renderer" );
+                thread.setDaemon( true );
+                return thread;
+            });
+    
     private final boolean type;
     private final int limit;
     private final Random random = new Random();
+    private final IntFunction<BufferedImage> renderer;
+    private final Deque<RenderTask> upcomingQuestions = new ArrayDeque<>( QUEUE_DEPTH );
     
     private int score = 0;
-    private int maxInt;
+    private final int maxInt;
+    private final TreeMetricsIndex metricsIndex; // null when questions are picked by magnitude only
+    private final int minComplexity;
+    private final int maxComplexity;
     private int round = 0;
+    private int questionsScheduled = 0;
+    private long totalRenderTime = 0; // ns, of questions dequeued
+    
+    /**
+     * A round's question: an integer and the image of its tree.
+     */
+    static final class Question
+    {
+        private final int number;
+        private final BufferedImage image;
+        private final long renderTime; // ns
+        
+        private Question( int number, BufferedImage image, long renderTime )
+        {
+            this.number = number;
+            this.image = image;
+            this.renderTime = renderTime;
+        }
+        
+        int number() { return number; }
+        
+        BufferedImage image() { return image; }
+        
+        long renderTime() { return renderTime; }
+    }
     
-    Game( int level, boolean type, int limit )
+    /**
+     * A game whose questions are graded by magnitude only.
+     * @param level questions are integers in [1, 2^level]
+     * @param type
+     * @param limit number of rounds
+     * @param renderer renders the image of an integer's tree; it is invoked on background threads.
+     */
+    Game( int level, boolean type, int limit, IntFunction<BufferedImage> renderer )
     {
         this.type = type;
         this.limit = limit;
+        this.renderer = renderer;
         maxInt = (int) Math.pow( 2, level );
+        metricsIndex = null;
+        minComplexity = maxComplexity = 0;
         random.nextInt( maxInt ); // throw it away
+        scheduleQuestions();
+    }
+    
+    /**
+     * A game whose questions are graded by tree complexity.
+     * @param metricsIndex questions are integers in [1, metricsIndex.size()]
+     * @param minComplexity least complexity of a question's tree
+     * @param maxComplexity greatest complexity of a question's tree
+     * @param type
+     * @param limit number of rounds
+     * @param renderer renders the image of an integer's tree; it is invoked on background threads.
+     * @throws IllegalArgumentException if no integer in the index has complexity in [minComplexity, maxComplexity].
+     */
+    Game( TreeMetricsIndex metricsIndex, int minComplexity, int maxComplexity, boolean type, int limit, 
+          IntFunction<BufferedImage> renderer ) throws IllegalArgumentException
+    {
+        if ( metricsIndex.count( minComplexity, maxComplexity ) == 0 )
+        {
+            throw new IllegalArgumentException( "No integer has complexity in [" + minComplexity + ", " + maxComplexity + "]." );
+        }
+        this.type = type;
+        this.limit = limit;
+        this.renderer = renderer;
+        this.metricsIndex = metricsIndex;
+        this.minComplexity = minComplexity;
+        this.maxComplexity = maxComplexity;
+        maxInt = metricsIndex.size();
+        scheduleQuestions();
     }
     
     boolean isOver() { return round >= limit; }
     
-    int next() 
+    /**
+     * Whether the next round's question has been rendered, so that next() does not wait.
+     * @return true if and only if the game is not over and its next question is rendered.
+     */
+    boolean isNextReady() { return ! isOver() && upcomingQuestions.getFirst().isDone(); }
+    
+    /**
+     * Run action, on a render thread, when the next round's question has been rendered, 
+     * or its rendering has failed or been cancelled; if it already has, run action now. 
+     * Action may be run more than once; it replaces any action given earlier for the same round.
+     * @param action to be run
+     * @throws IllegalStateException if the game is over
+     */
+    void whenNextReady( Runnable action )
+    {
+        if ( isOver() )
+        {
+            throw new IllegalStateException( "The game is over: all " + limit + " questions have been asked." );
+        }
+        final RenderTask next = upcomingQuestions.getFirst();
+        next.onDone = action;
+        if ( next.isDone() )
+        {
+            action.run();
+        }
+    }
+    
+    /**
+     * Start the next round: dequeue its question, waiting for it to render 
+     * unless isNextReady().
+     * @return the next round's question
+     * @throws InterruptedException if interrupted while waiting for the question to render
+     * @throws ExecutionException if rendering the question failed
+     * @throws IllegalStateException if the game is over: its limit of questions has been asked
+     */
+    Question next() throws InterruptedException, ExecutionException
     { 
+        if ( isOver() )
+        {
+            throw new IllegalStateException( "The game is over: all " + limit + " questions have been asked." );
+        }
         round++;
-        return 1 + random.nextInt( maxInt ); 
+        Question question = upcomingQuestions.removeFirst().get();
+        totalRenderTime += question.renderTime();
+        scheduleQuestions();
+        return question;
     }
     
+    private int pick() 
+    { 
+        return ( metricsIndex == null ) 
+                ? 1 + random.nextInt( maxInt ) 
+                : metricsIndex.sample( random, minComplexity, maxComplexity ); 
+    }
+    
+    private void scheduleQuestions()
+    {
+        while ( upcomingQuestions.size() < QUEUE_DEPTH && questionsScheduled < limit )
+        {
+            final int number = pick();
+            questionsScheduled++;
+            final RenderTask renderTask = new RenderTask( () -> 
+            {
+                long startTime = System.nanoTime();
+                BufferedImage image = renderer.apply( number );
+                return new Question( number, image, System.nanoTime() - startTime );
+            });
+            upcomingQuestions.addLast( renderTask );
+            RENDER_POOL.execute( renderTask );
+        }
+    }
+    
+    /**
+     * The rendering of a question, which runs an action when it is done.
+     */
+    static private final class RenderTask extends FutureTask<Question>
+    {
+        private volatile Runnable onDone;
+        
+        RenderTask( Callable<Question> render ) { super( render ); }
+        
+        @Override
+        protected void done()
+        {
+            final Runnable action = onDone;
+            if ( action != null )
+            {
+                action.run();
+            }
+        }
+    }
+    
+    /**
+     * Cancel the rendering of questions that will not be asked.
+     */
+    void cancel()
+    {
+        upcomingQuestions.forEach( future -> future.cancel( true ) );
+        upcomingQuestions.clear();
+    }
+    
+    /**
+     * The number of upcoming questions whose rendering has completed.
+     * @return the number of rendered upcoming questions
+     */
+    int readyQuestions() { return (int) upcomingQuestions.stream().filter( Future::isDone ).count(); }
+    
+    /**
+     * The number of upcoming questions, rendered or not.
+     * @return the number of upcoming questions
+     */
+    int upcomingQuestions() { return upcomingQuestions.size(); }
+    
+    /**
+     * The mean time to render the questions asked so far.
+     * @return the mean render time in ms
+     */
+    double meanRenderTime() { return round == 0 ? 0.0 : totalRenderTime / 1000000.0 / round; }
+    
     int processAnswer( boolean correct ) 
     { 
         score = ( correct ) ? score + 1 : score - 1;
@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.Color;
+import java.awt.Graphics;
+
+/**
+ * A DrawingSurface that renders onto a java.awt.Graphics, typically that of 
+ * a BufferedImage.
+ * @author Peter Cappello
+ */
+final class GraphicsSurface implements DrawingSurface
+{
+    private final Graphics graphics;
+    
+    GraphicsSurface( Graphics graphics ) { this.graphics = graphics; }
+
+    @Override
+    public void setColor( Color color ) { graphics.setColor( color ); }
+
+    @Override
+    public void drawLine( int x1, int y1, int x2, int y2 ) { graphics.drawLine( x1, y1, x2, y2 ); }
+
+    @Override
+    public void drawOval( int x, int y, int width, int height ) { graphics.drawOval( x, y, width, height ); }
+
+    @Override
+    public void fillOval( int x, int y, int width, int height ) { graphics.fillOval( x, y, width, height ); }
+
+    @Override
+    public void drawString( String string, int x, int y ) { graphics.drawString( string, x, y ); }
+}
@@ -0,0 +1,322 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Instrumentation of the bijection engine: counters and histograms, exposed by a 
+ * JMX MBean, and JFR events around prime table growth, tree construction, and rendering.
+ * <p>
+ * It is enabled by the system property PositiveIntegerToTreeBijection.instrumentation=true.
+ * When disabled, the instrumented code tests 1 static final boolean, which the JIT
+ * folds away, and creates no events.
+ * </p><p>
+ * Usage, at an instrumented site:
+ * </p><pre>
+ *     final Instrumentation.RenderEvent event = Instrumentation.renderStarted();
+ *     ... render ...
+ *     Instrumentation.rendered( event, n, "TREE" );
+ * </pre>
+ * @author Peter Cappello
+ */
+final class Instrumentation 
+{
+    static final boolean ENABLED = Boolean.getBoolean( "PositiveIntegerToTreeBijection.instrumentation" );
+    static final String OBJECT_NAME = "PositiveIntegerToTreeBijection:type=BijectionMetrics";
+    
+    static private final LongAdder PRIME_TABLE_GROWTHS = new LongAdder();
+    static private final LongAdder FACTORIZATIONS      = new LongAdder();
+    static private final LongAdder TREES_CONSTRUCTED   = new LongAdder();
+    static private final LongAdder RENDERS             = new LongAdder();
+    static private final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    static private final ConcurrentMap<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    
+    static
+    {
+        if ( ENABLED )
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean( new BijectionMetrics(), new ObjectName( OBJECT_NAME ) );
+            }
+            catch ( JMException exception )
+            {
+                Logger.getLogger( Instrumentation.class.getCanonicalName() )
+                      .log( Level.WARNING, "The metrics MBean could not be registered.", exception );
+            }
+        }
+    }
+    
+    private Instrumentation() {}
+    
+    //___________________________________________________________________
+    // JFR events
+    //___________________________________________________________________
+    static abstract class TimedEvent extends Event
+    {
+        transient long startTime = System.nanoTime(); // transient fields are not recorded
+        
+        long micros() { return ( System.nanoTime() - startTime ) / 1000; }
+    }
+    
+    @Name( "PositiveIntegerToTreeBijection.PrimeTableGrowth" )
+    @Label( "Prime Table Growth" )
+    @Category( "Tree Bijection" )
+    @Description( "The prime table grew, while its lock was held." )
+    static final class PrimeTableGrowthEvent extends TimedEvent
+    {
+        @Label( "From Prime Count" ) int fromPrimeCount;
+        @Label( "To Prime Count" )   int toPrimeCount;
+    }
+    
+    @Name( "PositiveIntegerToTreeBijection.TreeConstruction" )
+    @Label( "Tree Construction" )
+    @Category( "Tree Bijection" )
+    static final class TreeConstructionEvent extends TimedEvent
+    {
+        @Label( "Integer" )    int n;
+        @Label( "Node Count" ) int nodeCount;
+        @Label( "Height" )     int height;
+    }
+    
+    @Name( "PositiveIntegerToTreeBijection.Render" )
+    @Label( "Render" )
+    @Category( "Tree Bijection" )
+    static final class RenderEvent extends TimedEvent
+    {
+        @Label( "Integer" ) int n;
+        @Label( "View" )    String view;
+    }
+    
+    //___________________________________________________________________
+    // instrumented sites; each *Started returns null when disabled.
+    //___________________________________________________________________
+    static PrimeTableGrowthEvent primeTableGrowthStarted() { return ENABLED ? begin( new PrimeTableGrowthEvent() ) : null; }
+    
+    static void primeTableGrown( PrimeTableGrowthEvent event, int fromPrimeCount, int toPrimeCount )
+    {
+        if ( event == null )
+        {
+            return;
+        }
+        PRIME_TABLE_GROWTHS.increment();
+        histogram( "primeTableGrowth.micros" ).record( event.micros() );
+        event.fromPrimeCount = fromPrimeCount;
+        event.toPrimeCount = toPrimeCount;
+        event.commit();
+    }
+    
+    static void factorized()
+    {
+        if ( ENABLED )
+        {
+            FACTORIZATIONS.increment();
+        }
+    }
+    
+    static TreeConstructionEvent treeConstructionStarted() { return ENABLED ? begin( new TreeConstructionEvent() ) : null; }
+    
+    static void treeConstructed( TreeConstructionEvent event, Tree tree )
+    {
+        if ( event == null )
+        {
+            return;
+        }
+        TREES_CONSTRUCTED.increment();
+        histogram( "treeConstruction.micros" ).record( event.micros() );
+        histogram( "tree.nodeCount" ).record( tree.nodeCount() );
+        event.n = tree.label();
+        event.nodeCount = tree.nodeCount();
+        event.height = tree.height();
+        event.commit();
+    }
+    
+    static RenderEvent renderStarted() { return ENABLED ? begin( new RenderEvent() ) : null; }
+    
+    static void rendered( RenderEvent event, int n, String view )
+    {
+        if ( event == null )
+        {
+            return;
+        }
+        RENDERS.increment();
+        histogram( "render." + view + ".micros" ).record( event.micros() );
+        event.n = n;
+        event.view = view;
+        event.commit();
+    }
+    
+    /**
+     * Report a value that is maintained elsewhere, such as a cache's hit count, as a counter.
+     * This lets layers above the core, which this class must not depend on, add counters.
+     * @param name of the counter
+     * @param gauge supplies its value
+     */
+    static void gauge( String name, LongSupplier gauge )
+    {
+        if ( ENABLED )
+        {
+            GAUGES.put( name, gauge );
+        }
+    }
+    
+    static private <E extends Event> E begin( E event )
+    {
+        event.begin();
+        return event;
+    }
+    
+    static private Histogram histogram( String name ) { return HISTOGRAMS.computeIfAbsent( name, unused -> new Histogram() ); }
+    
+    /**
+     * A histogram with power-of-2 buckets, updated without locking.
+     */
+    static private final class Histogram
+    {
+        private final AtomicLongArray buckets = new AtomicLongArray( Long.SIZE + 1 );
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        
+        void record( long value )
+        {
+            buckets.incrementAndGet( Long.SIZE - Long.numberOfLeadingZeros( Math.max( 0, value ) ) );
+            sum.add( value );
+            max.accumulateAndGet( value, Math::max );
+        }
+        
+        long[] buckets()
+        {
+            long[] snapshot = new long[ buckets.length() ];
+            for ( int i = 0; i < snapshot.length; i++ )
+            {
+                snapshot[ i ] = buckets.get( i );
+            }
+            return snapshot;
+        }
+        
+        /** The upper bound of the bucket that holds the value at the fraction of a snapshot. */
+        static private long percentile( long[] buckets, long total, double fraction )
+        {
+            final long target = (long) Math.ceil( fraction * total );
+            long cumulative = 0;
+            for ( int i = 0; i < buckets.length; i++ )
+            {
+                cumulative += buckets[ i ];
+                if ( cumulative >= target && cumulative > 0 )
+                {
+                    return i == 0 ? 0 : ( i >= Long.SIZE - 1 ? Long.MAX_VALUE : ( 1L << i ) - 1 );
+                }
+            }
+            return 0;
+        }
+        
+        String summary()
+        {
+            final long[] snapshot = buckets();
+            long total = 0;
+            for ( long bucket : snapshot )
+            {
+                total += bucket;
+            }
+            return "count=" + total 
+                 + " mean=" + ( total == 0 ? 0 : sum.sum() / total )
+                 + " p50<=" + percentile( snapshot, total, 0.50 )
+                 + " p90<=" + percentile( snapshot, total, 0.90 )
+                 + " p99<=" + percentile( snapshot, total, 0.99 )
+                 + " max=" + max.get();
+        }
+        
+        void reset()
+        {
+            for ( int i = 0; i < buckets.length(); i++ )
+            {
+                buckets.set( i, 0 );
+            }
+            sum.reset();
+            max.set( 0 );
+        }
+    }
+    
+    /**
+     * The MBean.
+     */
+    static private final class BijectionMetrics implements BijectionMetricsMXBean
+    {
+        @Override
+        public Map<String, Long> getCounters()
+        {
+            Map<String, Long> counters = new TreeMap<>();
+            counters.put( "primeCount", (long) Tree.primeCount() );
+            counters.put( "primeTableGrowths", PRIME_TABLE_GROWTHS.sum() );
+            counters.put( "factorizations", FACTORIZATIONS.sum() );
+            counters.put( "treesConstructed", TREES_CONSTRUCTED.sum() );
+            counters.put( "renders", RENDERS.sum() );
+            GAUGES.forEach( ( name, gauge ) -> counters.put( name, gauge.getAsLong() ) );
+            return counters;
+        }
+        
+        @Override
+        public Map<String, String> getHistograms()
+        {
+            Map<String, String> histograms = new TreeMap<>();
+            HISTOGRAMS.forEach( ( name, histogram ) -> histograms.put( name, histogram.summary() ) );
+            return histograms;
+        }
+        
+        @Override
+        public long[] histogramBuckets( String name )
+        {
+            final Histogram histogram = HISTOGRAMS.get( name );
+            return histogram == null ? new long[ 0 ] : histogram.buckets();
+        }
+        
+        @Override
+        public void reset()
+        {
+            PRIME_TABLE_GROWTHS.reset();
+            FACTORIZATIONS.reset();
+            TREES_CONSTRUCTED.reset();
+            RENDERS.reset();
+            HISTOGRAMS.values().forEach( Histogram::reset );
+        }
+    }
+}
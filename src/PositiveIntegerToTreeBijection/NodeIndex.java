@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+/**
+ * A spatial index of a TreeLayout's nodes, for hit-testing: a k-d tree, 
+ * stored implicitly in a permutation of the node indices. The median of 
+ * each range [low, high) splits it on x at even depths, and on y at odd depths.
+ * Finding the node nearest a point takes O( log n ) expected time.
+ * @author Peter Cappello
+ */
+final class NodeIndex 
+{
+    private final TreeLayout layout;
+    private final int[] nodes; // permutation of node indices, in k-d tree order
+    
+    /**
+     * Index the layout's nodes, in O( n log n ) time.
+     * @param layout whose nodes are indexed
+     */
+    NodeIndex( TreeLayout layout )
+    {
+        this.layout = layout;
+        nodes = new int[ layout.size() ];
+        for ( int node = 0; node < nodes.length; node++ )
+        {
+            nodes[ node ] = node;
+        }
+        build( 0, nodes.length, 0 );
+    }
+    
+    private void build( int low, int high, int depth )
+    {
+        if ( high - low <= 1 )
+        {
+            return;
+        }
+        final int median = ( low + high ) >>> 1;
+        select( low, high - 1, median, depth % 2 == 0 );
+        build( low, median, depth + 1 );
+        build( median + 1, high, depth + 1 );
+    }
+    
+    /**
+     * Partially order nodes[ low .. high ] so that nodes[ k ] has the coordinate
+     * it would have if sorted, with no larger coordinates before it and no smaller after it.
+     */
+    private void select( int low, int high, int k, boolean byX )
+    {
+        while ( low < high )
+        {
+            final int pivot = coordinate( nodes[ ( low + high ) >>> 1 ], byX );
+            int i = low, j = high;
+            while ( i <= j )
+            {
+                while ( coordinate( nodes[ i ], byX ) < pivot ) i++;
+                while ( coordinate( nodes[ j ], byX ) > pivot ) j--;
+                if ( i <= j )
+                {
+                    final int swap = nodes[ i ]; nodes[ i ] = nodes[ j ]; nodes[ j ] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if ( k <= j )
+            {
+                high = j;
+            }
+            else if ( k >= i )
+            {
+                low = i;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+    
+    private int coordinate( int node, boolean byX ) { return byX ? layout.x( node ) : layout.y( node ); }
+    
+    /**
+     * The node nearest (x, y) that is within radius of it.
+     * @param x in layout coordinates
+     * @param y in layout coordinates
+     * @param radius maximum distance of node from (x, y)
+     * @return the node's index in the layout, or -1 if there is none within radius.
+     */
+    int nodeAt( double x, double y, double radius )
+    {
+        double[] best = { radius * radius, -1 }; // squared distance, node
+        search( 0, nodes.length, 0, x, y, best );
+        return (int) best[ 1 ];
+    }
+    
+    private void search( int low, int high, int depth, double x, double y, double[] best )
+    {
+        if ( low >= high )
+        {
+            return;
+        }
+        final int median = ( low + high ) >>> 1;
+        final int node = nodes[ median ];
+        final double dx = layout.x( node ) - x;
+        final double dy = layout.y( node ) - y;
+        final double distanceSquared = dx * dx + dy * dy;
+        if ( distanceSquared <= best[ 0 ] )
+        {
+            best[ 0 ] = distanceSquared;
+            best[ 1 ] = node;
+        }
+        // search the side containing (x, y) 1st; the other only if the splitting line is near enough.
+        final double delta = depth % 2 == 0 ? dx : dy;
+        if ( delta > 0 )
+        {
+            search( low, median, depth + 1, x, y, best );
+            if ( delta * delta <= best[ 0 ] )
+            {
+                search( median + 1, high, depth + 1, x, y, best );
+            }
+        }
+        else
+        {
+            search( median + 1, high, depth + 1, x, y, best );
+            if ( delta * delta <= best[ 0 ] )
+            {
+                search( low, median, depth + 1, x, y, best );
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Exports frames of a tree's planetary view as an animated GIF or as a 
+ * numbered PNG sequence.
+ * Frames are rendered on a pool of worker threads, each from the closed-form 
+ * positions of PlanetSystem.positionsAt, so no frame depends on another. 
+ * Frames are encoded in order by the calling thread; at most pipelineDepth 
+ * frames are rendered but not yet encoded, which bounds memory use 
+ * independently of the number of frames.
+ * @author Peter Cappello
+ */
+final class PlanetAnimationExporter 
+{
+    enum Format { GIF, PNG_SEQUENCE }
+    
+    static private final int FRAME_DELAY = 2; // hundredths of a second between GIF frames
+    
+    private final PlanetSystem planetSystem;
+    private final int size;
+    private final int nThreads;
+    private final int pipelineDepth;
+    
+    /**
+     * @param tree whose planetary view is exported
+     * @param size width and height of each frame in pixels
+     * @param nThreads number of rendering threads
+     * @param pipelineDepth maximum number of frames in flight
+     */
+    PlanetAnimationExporter( Tree tree, int size, int nThreads, int pipelineDepth )
+    {
+        if ( nThreads < 1 || pipelineDepth < 1 )
+        {
+            throw new IllegalArgumentException( "nThreads and pipelineDepth must be positive." );
+        }
+        planetSystem = new PlanetSystem( tree );
+        this.size = size;
+        this.nThreads = nThreads;
+        this.pipelineDepth = pipelineDepth;
+    }
+    
+    PlanetAnimationExporter( Tree tree )
+    {
+        this( tree, Viewer.IMAGE_VIEWPORT_SIZE, Runtime.getRuntime().availableProcessors(), 
+              2 * Runtime.getRuntime().availableProcessors() );
+    }
+    
+    /**
+     * Export frames 1, 2, ..., frameCount; frame t is the view after t time steps.
+     * The sink is closed even if the export fails; a failed GIF export deletes the partial file.
+     * @param frameCount number of frames
+     * @param format of the export
+     * @param path the GIF file, or the directory of the PNG sequence, which is 
+     * created if absent. PNG frames are named frame-00001.png, frame-00002.png, ...
+     * @throws IOException if the frames cannot be written
+     * @throws InterruptedException if interrupted while waiting for a frame
+     */
+    void export( int frameCount, Format format, Path path ) throws IOException, InterruptedException
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool( nThreads );
+        boolean isExported = false;
+        try
+        {
+            try ( FrameSink sink = format == Format.GIF ? new GifSink( path ) : new PngSequenceSink( path ) )
+            {
+                writeFrames( frameCount, sink, executorService );
+            }
+            isExported = true;
+        }
+        finally
+        {
+            executorService.shutdownNow();
+            if ( ! isExported && format == Format.GIF )
+            {
+                Files.deleteIfExists( path ); // do not leave a truncated GIF
+            }
+        }
+    }
+    
+    private void writeFrames( int frameCount, FrameSink sink, ExecutorService executorService ) throws IOException, InterruptedException
+    {
+        Deque<Future<BufferedImage>> pipeline = new ArrayDeque<>( pipelineDepth );
+        try
+        {
+            int nextFrame = 1;
+            for ( int frame = 1; frame <= frameCount; frame++ )
+            {
+                // keep the pipeline full
+                for ( ; nextFrame <= frameCount && pipeline.size() < pipelineDepth; nextFrame++ )
+                {
+                    final long time = nextFrame;
+                    pipeline.addLast( executorService.submit( () -> renderFrame( time ) ) );
+                }
+                sink.write( pipeline.removeFirst().get(), frame );
+            }
+        }
+        catch ( ExecutionException executionException )
+        {
+            throw new IOException( "Rendering a frame failed.", executionException.getCause() );
+        }
+    }
+    
+    private BufferedImage renderFrame( long time )
+    {
+        double[] x = new double[ planetSystem.size() ];
+        double[] y = new double[ planetSystem.size() ];
+        planetSystem.positionsAt( time, x, y );
+        BufferedImage bufferedImage = new BufferedImage( size, size, BufferedImage.TYPE_BYTE_INDEXED );
+        Graphics2D graphics = bufferedImage.createGraphics();
+        graphics.setColor( Color.WHITE );
+        graphics.fillRect( 0, 0, size, size );
+        planetSystem.draw( new GraphicsSurface( graphics ), x, y );
+        graphics.dispose();
+        return bufferedImage;
+    }
+    
+    //___________________________
+    //
+    // encoders
+    //___________________________
+    private interface FrameSink extends Closeable
+    {
+        void write( BufferedImage frame, int frameNumber ) throws IOException;
+    }
+    
+    static private final class PngSequenceSink implements FrameSink
+    {
+        private final Path directory;
+        
+        PngSequenceSink( Path directory ) throws IOException 
+        { 
+            this.directory = Files.createDirectories( directory );
+        }
+
+        @Override
+        public void write( BufferedImage frame, int frameNumber ) throws IOException
+        {
+            ImageIO.write( frame, "png", directory.resolve( String.format( "frame-%05d.png", frameNumber ) ).toFile() );
+        }
+
+        @Override
+        public void close() {}
+    }
+    
+    static private final class GifSink implements FrameSink
+    {
+        private final ImageOutputStream imageOutputStream;
+        private final ImageWriter imageWriter;
+        
+        GifSink( Path path ) throws IOException
+        {
+            Files.deleteIfExists( path );
+            imageOutputStream = ImageIO.createImageOutputStream( path.toFile() );
+            imageWriter = ImageIO.getImageWritersByFormatName( "gif" ).next();
+            try
+            {
+                imageWriter.setOutput( imageOutputStream );
+                imageWriter.prepareWriteSequence( null );
+            }
+            catch ( IOException | RuntimeException exception )
+            {
+                imageWriter.dispose();
+                imageOutputStream.close();
+                throw exception;
+            }
+        }
+
+        @Override
+        public void write( BufferedImage frame, int frameNumber ) throws IOException
+        {
+            IIOMetadata metadata = imageWriter.getDefaultImageMetadata( new ImageTypeSpecifier( frame ), null );
+            String formatName = metadata.getNativeMetadataFormatName();
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree( formatName );
+            
+            IIOMetadataNode graphicControl = child( root, "GraphicControlExtension" );
+            graphicControl.setAttribute( "disposalMethod", "none" );
+            graphicControl.setAttribute( "userInputFlag", "FALSE" );
+            graphicControl.setAttribute( "transparentColorFlag", "FALSE" );
+            graphicControl.setAttribute( "delayTime", Integer.toString( FRAME_DELAY ) );
+            graphicControl.setAttribute( "transparentColorIndex", "0" );
+            
+            if ( frameNumber == 1 )
+            {
+                // loop forever
+                IIOMetadataNode applicationExtension = new IIOMetadataNode( "ApplicationExtension" );
+                applicationExtension.setAttribute( "applicationID", "NETSCAPE" );
+                applicationExtension.setAttribute( "authenticationCode", "2.0" );
+                applicationExtension.setUserObject( new byte[]{ 1, 0, 0 } );
+                child( root, "ApplicationExtensions" ).appendChild( applicationExtension );
+            }
+            metadata.setFromTree( formatName, root );
+            imageWriter.writeToSequence( new IIOImage( frame, null, metadata ), null );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                imageWriter.endWriteSequence();
+            }
+            finally
+            {
+                imageWriter.dispose();
+                imageOutputStream.close();
+            }
+        }
+        
+        static private IIOMetadataNode child( IIOMetadataNode root, String name )
+        {
+            for ( int i = 0; i < root.getLength(); i++ )
+            {
+                if ( root.item( i ).getNodeName().equals( name ) )
+                {
+                    return (IIOMetadataNode) root.item( i );
+                }
+            }
+            IIOMetadataNode node = new IIOMetadataNode( name );
+            root.appendChild( node );
+            return node;
+        }
+    }
+}
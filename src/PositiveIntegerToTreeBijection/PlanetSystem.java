@@ -0,0 +1,251 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import static PositiveIntegerToTreeBijection.TreeRenderer.OFFESET;
+import static PositiveIntegerToTreeBijection.TreeRenderer.SCALE;
+import static PositiveIntegerToTreeBijection.Tree.SHOW_ORBIT;
+import java.awt.Color;
+
+/**
+ * The planetary view of a tree, compiled into primitive arrays.
+ * Bodies are stored in preorder, so each body's parent precedes it: 
+ * a time step is 1 loop that rotates each orbit angle by its step size, 
+ * followed by 1 loop that accumulates positions from parent to child.
+ * Orbit angles are kept as (cos, sin) pairs that are rotated by a fixed 
+ * per-body rotation, so no trigonometric function is evaluated per frame.
+ * <p>
+ * Since a body's orbit angle advances by a constant step size, its angle at 
+ * time t is initialAngle + t * stepSize: positionsAt( t, x, y ) computes 
+ * frame t directly, without stepping through frames 1, ..., t - 1.
+ * @author Peter Cappello
+ */
+final class PlanetSystem 
+{
+    /**
+     * Every RENORMALIZE_PERIOD time steps, the rotated (cos, sin) pairs are 
+     * recomputed from the exact orbit angles, bounding round-off drift.
+     */
+    static private final int RENORMALIZE_PERIOD = 1 << 10;
+    
+    private final int size;
+    private final int[] parent;           // index of parent body; root's is 0
+    private final double[] orbitRadius;   // radius of orbit around parent
+    private final double[] diameter;      // of body
+    private final double[] initialAngle;  // orbit angle at time 0, in radians
+    private final double[] stepSize;      // radians incremented per time step
+    private final double[] cosStep, sinStep;
+    private final Color[] color;
+    
+    // mutable state
+    private final double[] cos, sin;      // of orbit angle
+    private final double[] x, y;          // location of body
+    private long time;
+    
+    /**
+     * Compile the planetary view of the tree. Its state is that of the tree's 
+     * bodies before their 1st move.
+     * @param tree whose planetary view is compiled
+     */
+    PlanetSystem( Tree tree )
+    {
+        size = tree.nodeCount();
+        parent       = new int[ size ];
+        orbitRadius  = new double[ size ];
+        diameter     = new double[ size ];
+        initialAngle = new double[ size ];
+        stepSize     = new double[ size ];
+        cosStep      = new double[ size ];
+        sinStep      = new double[ size ];
+        color        = new Color[ size ];
+        cos          = new double[ size ];
+        sin          = new double[ size ];
+        x            = new double[ size ];
+        y            = new double[ size ];
+        compile( tree, 0, 0 );
+        for ( int body = 1; body < size; body++ )
+        {
+            cosStep[ body ] = Math.cos( stepSize[ body ] );
+            sinStep[ body ] = Math.sin( stepSize[ body ] );
+        }
+        renormalize();
+    }
+    
+    /**
+     * Store tree's bodies in preorder, starting at index body.
+     * @return the index following the last body of tree.
+     */
+    private int compile( Tree tree, int body, int parentBody )
+    {
+        parent[ body ]       = parentBody;
+        orbitRadius[ body ]  = tree.orbitRadius();
+        diameter[ body ]     = tree.diameter();
+        initialAngle[ body ] = tree.orbitAngle();
+        stepSize[ body ]     = tree.stepSize();
+        color[ body ]        = TreeRenderer.BODY_COLOR;
+        int next = body + 1;
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            next = compile( factorTree, next, body );
+        }
+        return next;
+    }
+    
+    /**
+     * The number of bodies in the system.
+     * @return the number of bodies in the system.
+     */
+    int size() { return size; }
+    
+    /**
+     * The number of time steps taken.
+     * @return the number of time steps taken.
+     */
+    long time() { return time; }
+    
+    /**
+     * Advance the system 1 time step. This is equivalent to Tree.move().
+     */
+    void step()
+    {
+        time++;
+        if ( time % RENORMALIZE_PERIOD == 0 )
+        {
+            renormalize();
+        }
+        else
+        {
+            // rotate each orbit angle by its step size
+            for ( int body = 1; body < size; body++ )
+            {
+                final double c = cos[ body ], s = sin[ body ];
+                cos[ body ] = c * cosStep[ body ] - s * sinStep[ body ];
+                sin[ body ] = s * cosStep[ body ] + c * sinStep[ body ];
+            }
+        }
+        accumulatePositions();
+    }
+    
+    /**
+     * Set the system's state to that at time t, as if step() were invoked 
+     * t times from time 0. Time may be moved backward.
+     * @param t the time step to seek; it must be non-negative.
+     */
+    void seek( long t )
+    {
+        if ( t < 0 )
+        {
+            throw new IllegalArgumentException( "time " + t + " is negative." );
+        }
+        time = t;
+        renormalize();
+        accumulatePositions();
+    }
+    
+    /**
+     * The body positions at time t, computed in O( size() ) time.
+     * The system's state is neither read nor modified, so frames may be 
+     * computed concurrently, out of order, or skipped.
+     * @param t the time step; it must be non-negative.
+     * @param x receives the bodies' x coordinates; its length must be at least size().
+     * @param y receives the bodies' y coordinates; its length must be at least size().
+     */
+    void positionsAt( long t, double[] x, double[] y )
+    {
+        if ( t < 0 )
+        {
+            throw new IllegalArgumentException( "time " + t + " is negative." );
+        }
+        x[ 0 ] = y[ 0 ] = 0.0;
+        for ( int body = 1; body < size; body++ )
+        {
+            final double angle = angleAt( body, t );
+            x[ body ] = x[ parent[ body ] ] + orbitRadius[ body ] * Math.cos( angle );
+            y[ body ] = y[ parent[ body ] ] + orbitRadius[ body ] * Math.sin( angle );
+        }
+    }
+    
+    private double angleAt( int body, long t )
+    {
+        // reduce the angular displacement first, to keep precision for large t.
+        return initialAngle[ body ] + Math.IEEEremainder( t * stepSize[ body ], 2.0 * Math.PI );
+    }
+    
+    private void renormalize()
+    {
+        for ( int body = 1; body < size; body++ )
+        {
+            final double angle = angleAt( body, time );
+            cos[ body ] = Math.cos( angle );
+            sin[ body ] = Math.sin( angle );
+        }
+    }
+    
+    private void accumulatePositions()
+    {
+        // parents precede children, so parent positions are current.
+        for ( int body = 1; body < size; body++ )
+        {
+            x[ body ] = x[ parent[ body ] ] + orbitRadius[ body ] * cos[ body ];
+            y[ body ] = y[ parent[ body ] ] + orbitRadius[ body ] * sin[ body ];
+        }
+    }
+    
+    /**
+     * Draw the bodies, and their orbits if SHOW_ORBIT, as TreeRenderer.drawPlanets does.
+     * @param surface on which the system is drawn
+     */
+    void draw( DrawingSurface surface ) { draw( surface, x, y ); }
+    
+    /**
+     * Draw the bodies at the given positions, e.g., those of positionsAt( t, x, y ).
+     * @param surface on which the system is drawn
+     * @param x the bodies' x coordinates
+     * @param y the bodies' y coordinates
+     */
+    void draw( DrawingSurface surface, double[] x, double[] y )
+    {
+        for ( int body = 0; body < size; body++ )
+        {
+            if ( SHOW_ORBIT )
+            {
+                final double parentX = x[ parent[ body ] ];
+                final double parentY = y[ parent[ body ] ];
+                final double radius  = orbitRadius[ body ];
+                surface.setColor( Color.RED );
+                surface.drawOval( (int) ( OFFESET + SCALE * ( parentX - radius ) ),
+                                  (int) ( OFFESET + SCALE * ( parentY - radius ) ),
+                                  (int) ( SCALE * 2.0 * radius ),
+                                  (int) ( SCALE * 2.0 * radius )
+                                );
+            }
+            surface.setColor( color[ body ] );
+            surface.fillOval( (int) ( OFFESET + SCALE * ( x[ body ] - diameter[ body ] / 2.0 ) ), 
+                              (int) ( OFFESET + SCALE * ( y[ body ] - diameter[ body ] / 2.0 ) ), 
+                              (int) ( SCALE * diameter[ body ] ), 
+                              (int) ( SCALE * diameter[ body ] ) 
+                            );
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * A DrawingSurface that streams an Encapsulated PostScript document to a Writer.
+ * PostScript's origin is the lower left corner, so y coordinates are flipped.
+ * @author Peter Cappello
+ */
+final class PostScriptSurface implements DrawingSurface, AutoCloseable
+{
+    private final Writer writer;
+    private final int height;
+    
+    /**
+     * Writes the EPS header and a prolog that defines the el (ellipse) procedure.
+     * @param writer to which the document is streamed; it should be buffered.
+     * @param width of the document in points
+     * @param height of the document in points
+     */
+    PostScriptSurface( Writer writer, int width, int height )
+    {
+        this.writer = writer;
+        this.height = height;
+        write( "%!PS-Adobe-3.0 EPSF-3.0\n" );
+        write( "%%BoundingBox: 0 0 " + width + ' ' + height + '\n' );
+        write( "%%EndComments\n" );
+        // cx cy rx ry el -> elliptical path; the CTM is restored so strokes are not scaled.
+        write( "/el { matrix currentmatrix 5 1 roll 4 2 roll translate scale newpath 0 0 1 0 360 arc setmatrix } bind def\n" );
+        write( "/Helvetica findfont 10 scalefont setfont\n" );
+    }
+
+    @Override
+    public void setColor( Color color )
+    {
+        write( color.getRed() / 255.0 + " " + color.getGreen() / 255.0 + ' ' + color.getBlue() / 255.0 + " setrgbcolor\n" );
+    }
+
+    @Override
+    public void drawLine( int x1, int y1, int x2, int y2 )
+    {
+        write( "newpath " + x1 + ' ' + ( height - y1 ) + " moveto " + x2 + ' ' + ( height - y2 ) + " lineto stroke\n" );
+    }
+
+    @Override
+    public void drawOval( int x, int y, int width, int height ) { ellipse( x, y, width, height, "stroke" ); }
+
+    @Override
+    public void fillOval( int x, int y, int width, int height ) { ellipse( x, y, width, height, "fill" ); }
+
+    @Override
+    public void drawString( String string, int x, int y )
+    {
+        write( x + " " + ( height - y ) + " moveto (" + escape( string ) + ") show\n" );
+    }
+    
+    /**
+     * Writes the EPS trailer and flushes the writer; the writer is not closed.
+     */
+    @Override
+    public void close()
+    {
+        write( "showpage\n%%EOF\n" );
+        try
+        {
+            writer.flush();
+        }
+        catch ( IOException ioException )
+        {
+            throw new UncheckedIOException( ioException );
+        }
+    }
+    
+    private void ellipse( int x, int y, int width, int height, String paintOperator )
+    {
+        write( ( x + width / 2.0 ) + " " + ( this.height - y - height / 2.0 ) + ' ' 
+             + ( width / 2.0 ) + ' ' + ( height / 2.0 ) + " el " + paintOperator + '\n' );
+    }
+    
+    private void write( String string )
+    {
+        try
+        {
+            writer.write( string );
+        }
+        catch ( IOException ioException )
+        {
+            throw new UncheckedIOException( ioException );
+        }
+    }
+    
+    static private String escape( String string )
+    {
+        return string.replace( "\\", "\\\\" ).replace( "(", "\\(" ).replace( ")", "\\)" );
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A segmented sieve of Eratosthenes, which grows the prime table (see Tree). 
+ * A segment is a bitmap of SEGMENT_WORDS longs; bit i of the sieve stands for the 
+ * odd integer 2i + 1, and is set when the integer is found to be composite.
+ * Sieving a segment has 3 phases:
+ * <ol>
+ * <li> pre-sieve: the multiples of the small primes 3, 5, ..., 23 are marked by OR-ing 
+ *      precomputed bit patterns, whose periods are products of those primes, word by word;</li>
+ * <li> crossing off: the odd multiples of each larger prime &le; the square root of the 
+ *      segment's largest integer are marked;</li>
+ * <li> harvest: the primes, the clear bits, are extracted in increasing order.</li>
+ * </ol>
+ * This is the scalar kernel. If the jdk.incubator.vector module is available 
+ * (e.g., java --add-modules jdk.incubator.vector), create() returns the VectorPrimeSieve 
+ * kernel, when it was compiled, which pre-sieves and harvests whole vectors at a time. 
+ * The system property PositiveIntegerToTreeBijection.sieve=scalar selects the scalar kernel.
+ * @author Peter Cappello
+ */
+class PrimeSieve 
+{
+    static final int SEGMENT_WORDS = 1 << 12; // 32 KB: 262,144 odd integers
+    static final String KERNEL_PROPERTY = "PositiveIntegerToTreeBijection.sieve";
+    
+    static private final int[][] PRE_SIEVE_PRIMES = { { 3, 5, 7, 11, 13 }, { 17, 19, 23 } };
+    static private final int LARGEST_PRE_SIEVED_PRIME = 23;
+    static private final int FIRST_CROSSED_OFF_RANK = 10; // the rank of 29
+    
+    /* PATTERNS[ k ][ w ] is word w of the bitmap of the odd multiples of the primes in 
+     * PRE_SIEVE_PRIMES[ k ]. Its period, the product of those primes, is odd, so it repeats every 
+     * PERIODS[ k ] words; the pattern is extended by a segment's worth of words, so that 
+     * the words of any segment are contiguous in it.
+     */
+    static final int[] PERIODS = new int[ PRE_SIEVE_PRIMES.length ];
+    static final long[][] PATTERNS = new long[ PRE_SIEVE_PRIMES.length ][];
+    static
+    {
+        for ( int k = 0; k < PRE_SIEVE_PRIMES.length; k++ )
+        {
+            int period = 1;
+            for ( int prime : PRE_SIEVE_PRIMES[ k ] )
+            {
+                period *= prime;
+            }
+            PERIODS[ k ] = period;
+            PATTERNS[ k ] = new long[ period + SEGMENT_WORDS ];
+            for ( int prime : PRE_SIEVE_PRIMES[ k ] )
+            {
+                // 2i + 1 is a multiple of prime if and only if i = ( prime - 1 ) / 2 modulo prime.
+                for ( long i = ( prime - 1 ) / 2; i < 64L * PATTERNS[ k ].length; i += prime )
+                {
+                    PATTERNS[ k ][ (int) ( i >>> 6 ) ] |= 1L << i;
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return the vector kernel, if it and the jdk.incubator.vector module are available 
+     * and it is not deselected; otherwise, the scalar kernel.
+     */
+    static PrimeSieve create()
+    {
+        if ( ! "scalar".equals( System.getProperty( KERNEL_PROPERTY ) ) )
+        {
+            try
+            {
+                return (PrimeSieve) Class.forName( PrimeSieve.class.getPackage().getName() + ".VectorPrimeSieve" )
+                                         .getDeclaredConstructor().newInstance();
+            }
+            catch ( ReflectiveOperationException | LinkageError unavailable )
+            {
+                Logger.getLogger( PrimeSieve.class.getCanonicalName() )
+                      .log( Level.FINE, "The vector sieve kernel is unavailable; using the scalar kernel.", unavailable );
+            }
+        }
+        return new PrimeSieve();
+    }
+    
+    /**
+     * Sieve the segment that contains after + 2, if it is odd, or else after + 1, 
+     * passing the primes in it that are greater than after to consumer, in increasing order.
+     * The segment ends at its last word, the square of the largest base prime, 
+     * or Integer.MAX_VALUE, whichever is least.
+     * @param after a prime &ge; 2; the primes up to it are known.
+     * @param basePrimes basePrimes[ rank ] is the prime of that rank, for rank in [1, basePrimeCount]
+     * @param basePrimeCount the number of base primes
+     * @param consumer to which each prime is passed
+     * @return the largest integer sieved; the consumer has been passed every prime in ( after, it ].
+     */
+    final long sieveSegment( int after, int[] basePrimes, int basePrimeCount, IntConsumer consumer )
+    {
+        final long firstIndex = ( after + 1L ) / 2;
+        final long firstWord = firstIndex >>> 6;
+        final long lastInteger = Math.min( Math.min( 2 * 64 * ( firstWord + SEGMENT_WORDS ) - 1, Integer.MAX_VALUE ), 
+                                           (long) basePrimes[ basePrimeCount ] * basePrimes[ basePrimeCount ] );
+        long[] segment = new long[ SEGMENT_WORDS ];
+        preSieve( segment, firstWord );
+        final long firstInteger = 2 * 64 * firstWord + 1;
+        if ( firstInteger <= LARGEST_PRE_SIEVED_PRIME )
+        {
+            // the pre-sieve marks the small primes themselves, and 1 is not a prime.
+            for ( int[] primes : PRE_SIEVE_PRIMES )
+            {
+                for ( int prime : primes )
+                {
+                    segment[ 0 ] &= ~( 1L << ( prime / 2 ) );
+                }
+            }
+            segment[ 0 ] |= 1L;
+        }
+        crossOff( segment, firstInteger, lastInteger, basePrimes, basePrimeCount );
+        harvest( segment, firstWord, firstIndex, ( lastInteger - 1 ) / 2, consumer );
+        return lastInteger;
+    }
+    
+    /**
+     * Set segment's words to the pre-sieve patterns.
+     * @param segment the bitmap
+     * @param firstWord the index, in the whole sieve, of the segment's 1st word
+     */
+    void preSieve( long[] segment, long firstWord )
+    {
+        final int offset0 = (int) ( firstWord % PERIODS[ 0 ] );
+        final int offset1 = (int) ( firstWord % PERIODS[ 1 ] );
+        final long[] pattern0 = PATTERNS[ 0 ];
+        final long[] pattern1 = PATTERNS[ 1 ];
+        for ( int w = 0; w < segment.length; w++ )
+        {
+            segment[ w ] = pattern0[ offset0 + w ] | pattern1[ offset1 + w ];
+        }
+    }
+    
+    static private void crossOff( long[] segment, long firstInteger, long lastInteger, int[] basePrimes, int basePrimeCount )
+    {
+        final long firstIndex = ( firstInteger - 1 ) / 2;
+        final long size = 64L * segment.length;
+        for ( int rank = FIRST_CROSSED_OFF_RANK; rank <= basePrimeCount; rank++ )
+        {
+            final long prime = basePrimes[ rank ];
+            long multiple = prime * prime;
+            if ( multiple > lastInteger )
+            {
+                return;
+            }
+            if ( multiple < firstInteger )
+            {
+                multiple = ( firstInteger + prime - 1 ) / prime * prime;
+                if ( ( multiple & 1 ) == 0 )
+                {
+                    multiple += prime;
+                }
+            }
+            for ( long i = ( multiple - 1 ) / 2 - firstIndex; i < size; i += prime )
+            {
+                segment[ (int) ( i >>> 6 ) ] |= 1L << i;
+            }
+        }
+    }
+    
+    /**
+     * Pass the integers of the clear bits in [firstIndex, lastIndex] to consumer, in increasing order.
+     * @param segment the sieved bitmap
+     * @param firstWord the index, in the whole sieve, of the segment's 1st word
+     */
+    void harvest( long[] segment, long firstWord, long firstIndex, long lastIndex, IntConsumer consumer )
+    {
+        for ( int w = 0; w < segment.length; w++ )
+        {
+            harvestWord( ~segment[ w ], firstWord + w, firstIndex, lastIndex, consumer );
+        }
+    }
+    
+    /**
+     * Pass the integers of the set bits of primeBits, word word of the sieve, 
+     * that are in [firstIndex, lastIndex], to consumer, in increasing order.
+     */
+    static void harvestWord( long primeBits, long word, long firstIndex, long lastIndex, IntConsumer consumer )
+    {
+        final long wordIndex = word << 6;
+        if ( wordIndex < firstIndex )
+        {
+            primeBits &= -1L << ( firstIndex - wordIndex );
+        }
+        if ( wordIndex + 63 > lastIndex )
+        {
+            if ( wordIndex > lastIndex )
+            {
+                return;
+            }
+            primeBits &= -1L >>> ( 63 - ( lastIndex - wordIndex ) );
+        }
+        for ( ; primeBits != 0; primeBits &= primeBits - 1 )
+        {
+            consumer.accept( (int) ( 2 * ( wordIndex + Long.numberOfTrailingZeros( primeBits ) ) + 1 ) );
+        }
+    }
+}
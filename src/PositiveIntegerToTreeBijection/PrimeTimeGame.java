@@ -31,7 +31,8 @@ import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.net.URL;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.ImageIcon;
@@ -44,10 +45,8 @@ import static javax.swing.JOptionPane.ERROR_MESSAGE;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineUnavailableException;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 /**
@@ -71,9 +70,15 @@ public class PrimeTimeGame extends JFrame
     private final JLabel levelLabel = new JLabel( "  Level" );
     private final String[] levelArray = { "1: 1 - 2", "2: 1 - 4", "3: 1 - 8", 
         "4: 1 - 16", "5: 1 - 32", "6: 1 - 64", "7: 1 - 128", "8: 1 - 256",
-        "9: 1 - 512", "10: 1 - 1024"};
+        "9: 1 - 512", "10: 1 - 1024", "11: 1 - 2048", "12: 1 - 4096", "13: 1 - 8192", 
+        "14: 1 - 16384", "15: 1 - 32768", "16: 1 - 65536", "17: 1 - 131072", "18: 1 - 262144", 
+        "19: 1 - 524288", "20: 1 - 1048576" };
     private final JComboBox<String> levelComboBox = new JComboBox<>( levelArray );
     
+    private final JLabel difficultyLabel = new JLabel( "  Difficulty" );
+    private final String[] difficultyArray = { "Any", "Easy", "Medium", "Hard" };
+    private final JComboBox<String> difficultyComboBox = new JComboBox<>( difficultyArray );
+    
     private final JLabel typeLabel = new JLabel( "  Type" );
     private final String[] typeArray = { "Rounds", "Timed" };
     private final JComboBox<String> typeComboBox = new JComboBox<>( typeArray );
@@ -108,15 +113,17 @@ public class PrimeTimeGame extends JFrame
     // model
     private Game game;
     private int number;
-    private Tree tree;
     private int level = 4;
+    private int difficulty = 0; // index into difficultyArray; 0: any complexity
+    private TreeMetricsIndex metricsIndex; // of the latest level, built on demand off the EDT; guarded by this
+    private SwingWorker<Game, Void> newGameWorker; // prepares the most recently requested game
     private int limit = 3;
     private ViewAs viewAs = ViewAs.PLANETS;
     
     // media
     // Source http://soundbible.com/tags-game.html
-    private URL dundunUrl;
-    private URL dingSoundUrl; // https://www.freesound.org/people/Aiwha/sounds/196106/
+    private SoundEffect dundun;
+    private SoundEffect ding; // https://www.freesound.org/people/Aiwha/sounds/196106/
     
     // animation
 //    private final Animation animation;
@@ -142,12 +149,15 @@ public class PrimeTimeGame extends JFrame
         
         container.add( imageViewScrollPane, BorderLayout.CENTER );
         container.add( controlPanel, BorderLayout.NORTH );
-            controlPanel.setLayout( new GridLayout( 9, 2) );
+            controlPanel.setLayout( new GridLayout( 10, 2) );
             controlPanel.add( levelLabel );
             controlPanel.add( levelComboBox );
                 levelComboBox.setSelectedIndex( 2 );
                 typeComboBox.setSelectedIndex( 0 );
             
+            controlPanel.add( difficultyLabel );
+            controlPanel.add( difficultyComboBox );
+            
             controlPanel.add( typeLabel );
             controlPanel.add( typeComboBox );
             
@@ -190,31 +200,31 @@ public class PrimeTimeGame extends JFrame
         goButton.addActionListener( this::goButtonActionPerformed );        
         yourAnswerTextField.addActionListener( this::yourAnswerTextFieldActionPerformed );
         levelComboBox.addActionListener( this::levelComboBoxActionPerformed) ;
+        difficultyComboBox.addActionListener( this::difficultyComboBoxActionPerformed) ;
         viewAsComboBox.addActionListener( this::viewAsComboBoxActionPerformed) ;
         
         // Audio
-        dundunUrl = this.getClass().getClassLoader().getResource("sounds/dun_dun.wav");
-        dingSoundUrl = this.getClass().getClassLoader().getResource("sounds/196106__aiwha__ding.wav");
+        // conversion from mp3 to wav: http://audio.online-convert.com/convert-to-wav
+        dundun = SoundEffect.load( this.getClass().getClassLoader().getResource("sounds/dun_dun.wav") );
+        ding = SoundEffect.load( this.getClass().getClassLoader().getResource("sounds/196106__aiwha__ding.wav") );
     }
 
-    private void displayAsTree( int number )
+    private void displayAsTree( BufferedImage treeView )
     {
-        tree = new Tree( number );
-        imageView.image( tree.getTreeView() );
+        imageView.image( treeView );
         imageView.repaint();
 //        stringView.setText( tree.getStringView() );
         
-        imageViewScrollPane.setViewportView( new JLabel( new ImageIcon( tree.getTreeView() ) ) );
+        imageViewScrollPane.setViewportView( new JLabel( new ImageIcon( treeView ) ) );
     }
     
     private void displayAsPlanets( int number )
     {
-        tree = new Tree( number );
-        imageView.image( tree.getPlanetsView() );
+        imageView.image( RenderCache.shared().view( number, ViewAs.PLANETS ) );
         imageView.repaint();
 //        stringView.setText( tree.getStringView() );
         
-        imageViewScrollPane.setViewportView( new JLabel( new ImageIcon( tree.getTreeView() ) ) );
+        imageViewScrollPane.setViewportView( new JLabel( new ImageIcon( RenderCache.shared().view( number, ViewAs.TREE ) ) ) );
     }
 
     //  _________________________
@@ -225,6 +235,11 @@ public class PrimeTimeGame extends JFrame
         level = 1 + levelComboBox.getSelectedIndex();
     }
     
+    private void difficultyComboBoxActionPerformed( ActionEvent unused ) 
+    {
+        difficulty = difficultyComboBox.getSelectedIndex();
+    }
+    
     
     private void limitTextFieldActionPerformed( ActionEvent unused ) 
     {
@@ -242,11 +257,55 @@ public class PrimeTimeGame extends JFrame
     
     private void newGameButtonActionPerformed( ActionEvent unused ) 
     {
-        game = new Game( level, true, limit );
+        if ( game != null )
+        {
+            game.cancel();
+            game = null;
+        }
+        if ( newGameWorker != null )
+        {
+            newGameWorker.cancel( true );
+        }
+        goButton.setText( "Preparing ..." );
+        goButton.setEnabled( false );
+        final int gameLevel = level, gameDifficulty = difficulty, gameLimit = limit;
+        newGameWorker = new SwingWorker<Game, Void>()
+        {
+            // the game's tree metrics index, of up to 2^20 integers, is built off the EDT.
+            @Override
+            protected Game doInBackground() { return newGame( gameLevel, gameDifficulty, gameLimit ); }
+
+            @Override
+            protected void done()
+            {
+                if ( this != newGameWorker ) 
+                {
+                    return; // superseded
+                }
+                newGameWorker = null;
+                try
+                {
+                    startGame( get() );
+                }
+                catch ( ExecutionException exception )
+                {
+                    goButton.setText( "Go!" );
+                    JOptionPane.showMessageDialog( PrimeTimeGame.this, "The game could not be started: " + exception.getCause().getMessage(), 
+                                                   "Game error", ERROR_MESSAGE );
+                }
+                catch ( InterruptedException ignore ) {}
+            }
+        };
+        newGameWorker.execute();
+    }
+    
+    private void startGame( Game newGame )
+    {
+        game = newGame;
         roundTextField.setText( String.valueOf( 0 ) );
         scoreTextField.setText( String.valueOf( 0 ) );
         goButton.setText( "Go!" );
-        goButton.setEnabled( true );
+        enableGoWhenReady();
         yourAnswerTextField.setText( "" );
         correctAnswerTextField.setText( "" );
         BufferedImage bufferedImage = new BufferedImage( 800, 800, BufferedImage.TYPE_INT_ARGB );
@@ -254,47 +313,72 @@ public class PrimeTimeGame extends JFrame
         imageView.repaint();
         imageViewScrollPane.setViewportView( new JLabel( new ImageIcon( bufferedImage ) ) );
         goButton.requestFocusInWindow();
-        
-        // conversion from mp3 to wav: http://audio.online-convert.com/convert-to-wav
+        dundun.play();
+    }
+    
+    private void goButtonActionPerformed( ActionEvent unused ) 
+    {
+        if ( game.isOver() )
+        {
+            gameOver(); // GO was pressed for every question, without answering the last
+            return;
+        }
+        final long startTime = System.nanoTime();
+        final int readyQuestions = game.readyQuestions();
+        Game.Question question;
         try
         {
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(dundunUrl );
-            Clip clip = AudioSystem.getClip();
-            clip.open( audioIn );
-            clip.start();
+            question = game.next();
         }
-        catch( IOException | LineUnavailableException | UnsupportedAudioFileException ex )
+        catch ( InterruptedException | ExecutionException exception )
         {
-            // !! log not print.
-            ex.printStackTrace();
+            Logger.getLogger( getClass().getCanonicalName() ).log( Level.WARNING, "Rendering the question failed.", exception );
+            enableGoWhenReady();
+            return;
         }
-    }
-    
-    private void goButtonActionPerformed( ActionEvent unused ) 
-    {
-        number = game.next();
-        displayAsTree( number );
+        enableGoWhenReady();
+        number = question.number();
+        displayAsTree( question.image() );
 //        displayAsPlanets( number );
+        Logger.getLogger( getClass().getCanonicalName() )
+              .log( Level.INFO, "Round {0}: ready questions: {1}, wait: {2} ms, mean render time: {3} ms.", 
+                    new Object[]{ game.round(), readyQuestions, ( System.nanoTime() - startTime ) / 1000000, game.meanRenderTime() } );
         roundTextField.setText( String.valueOf( game.round() ) );
         yourAnswerTextField.setText( "" );
         correctAnswerTextField.setText( "" );
         yourAnswerTextField.requestFocusInWindow();
-        try
+        ding.play();
+    }
+    
+    /**
+     * Enable GO once the game's next question is rendered, so that pressing it 
+     * does not wait, on the EDT, for rendering. When the game is over, GO is enabled: 
+     * pressing it ends the game.
+     */
+    private void enableGoWhenReady()
+    {
+        if ( game.isOver() || game.isNextReady() )
         {
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream( dingSoundUrl );
-            Clip clip = AudioSystem.getClip();
-            clip.open( audioIn );
-            clip.start();
+            goButton.setEnabled( true );
+            return;
         }
-        catch( IOException | LineUnavailableException | UnsupportedAudioFileException ex )
+        goButton.setEnabled( false );
+        final Game waitingGame = game;
+        waitingGame.whenNextReady( () -> SwingUtilities.invokeLater( () -> 
         {
-            // !! log not print.
-            ex.printStackTrace();
-        }
+            if ( game == waitingGame && ( game.isOver() || game.isNextReady() ) )
+            {
+                goButton.setEnabled( true );
+            }
+        }));
     }
     
     private void yourAnswerTextFieldActionPerformed( ActionEvent unused ) 
     {
+        if ( game == null )
+        {
+            return; // the game is being prepared
+        }
         try 
         {
             int yourAnswer = getIntFromJTextField( yourAnswerTextField );
@@ -302,9 +386,7 @@ public class PrimeTimeGame extends JFrame
             scoreTextField.setText( String.valueOf( game.processAnswer( yourAnswer == number ) ));
             if ( game.isOver() )
             {
-                goButton.setText( "Game over" );
-                goButton.setEnabled( false );
-                newGameButton.requestFocusInWindow();
+                gameOver();
             }
             else
             {
@@ -314,6 +396,56 @@ public class PrimeTimeGame extends JFrame
         catch ( IllegalArgumentException ex ) {}
     }
     
+    private void gameOver()
+    {
+        goButton.setText( "Game over" );
+        goButton.setEnabled( false );
+        newGameButton.requestFocusInWindow();
+    }
+    
+    /**
+     * A game of a level and difficulty; it is invoked off the EDT. 
+     * The Easy, Medium, and Hard difficulties sample the lower, middle, and upper third, 
+     * by tree complexity, of the level's integers.
+     * @param level questions are integers in [1, 2^level]
+     * @param difficulty index into difficultyArray
+     * @param limit number of rounds
+     * @return a new game
+     */
+    private Game newGame( int level, int difficulty, int limit )
+    {
+        final IntFunction<BufferedImage> renderer = number -> RenderCache.shared().view( number, ViewAs.TREE );
+        if ( difficulty == 0 )
+        {
+            return new Game( level, true, limit, renderer );
+        }
+        final TreeMetricsIndex metricsIndex = metricsIndex( 1 << level );
+        final int thirds = difficultyArray.length - 1;
+        final int minComplexity = metricsIndex.complexityAt( ( difficulty - 1 ) / (double) thirds );
+        final int maxComplexity = ( difficulty == thirds ) 
+                ? metricsIndex.maxComplexity() 
+                : metricsIndex.complexityAt( difficulty / (double) thirds );
+        return new Game( metricsIndex, minComplexity, maxComplexity, true, limit, renderer );
+    }
+    
+    /**
+     * The tree metrics index of [1, size], which is kept for the next game of the same level.
+     * @param size of the index
+     * @return the index
+     */
+    synchronized private TreeMetricsIndex metricsIndex( int size )
+    {
+        if ( metricsIndex == null || metricsIndex.size() != size )
+        {
+            final long startTime = System.nanoTime();
+            metricsIndex = new TreeMetricsIndex( size );
+            Logger.getLogger( getClass().getCanonicalName() )
+                  .log( Level.INFO, "Tree metrics index of [1, {0}]: {1} ms.", 
+                        new Object[]{ size, ( System.nanoTime() - startTime ) / 1000000 } );
+        }
+        return metricsIndex;
+    }
+    
     private int getIntFromJTextField( JTextField jTextField ) throws IllegalArgumentException
     {
         String numberText = jTextField.getText();
@@ -0,0 +1,413 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+
+/**
+ * A 2-tier cache of rendered tree views, keyed by (integer, view, render parameters).
+ * The front tier holds recently used images in memory; its total size, at 4 bytes 
+ * per pixel, is capped, evicting the least recently used images. The back tier holds 
+ * PNG-compressed images on disk, in files named by the SHA-1 digest of their key; 
+ * its total size is capped, evicting the least recently used files. 
+ * Recency survives restarts, since a hit touches its file's modification time.
+ * <p>
+ * The shared instance is used by the Viewer, the game, and batch renderers; 
+ * its directory is given by the system property renderCache.dir, 
+ * by default ~/.PositiveIntegerToTreeBijection/renderCache. If that directory 
+ * cannot be created or read, the shared instance caches in memory only.
+ * Disk reads, writes, and deletions are done without holding the cache's lock, 
+ * which guards only its tiers and counters.
+ * @author Peter Cappello
+ */
+final class RenderCache 
+{
+    /**
+     * Identifies the rendering code & its parameters. Change it when a view's 
+     * appearance changes, so that stale images are not served.
+     */
+    static final String RENDER_PARAMETERS = "v1 element=8";
+    
+    static private final long MEMORY_CAPACITY = 64L << 20; // bytes
+    static private final long DEFAULT_DISK_CAPACITY = 256L << 20; // bytes
+    static private final String SUFFIX = ".png";
+    static private RenderCache sharedRenderCache;
+    
+    private final Path directory; // null if there is no disk tier
+    private final long diskCapacity;
+    
+    // guarded by this
+    private final LinkedHashMap<String, BufferedImage> memoryTier = new LinkedHashMap<>( 16, 0.75f, true );
+    private long memorySize;
+    private final LinkedHashMap<String, Long> diskTier = new LinkedHashMap<>( 16, 0.75f, true ); // file name -> size
+    private long diskSize;
+    private long memoryHits, diskHits, misses;
+    
+    /**
+     * @param directory of the disk tier; it is created if absent
+     * @param diskCapacity maximum total size in bytes of the disk tier's files
+     * @throws IOException if the directory cannot be created or read
+     */
+    RenderCache( Path directory, long diskCapacity ) throws IOException
+    {
+        this.directory = Files.createDirectories( directory );
+        this.diskCapacity = diskCapacity;
+        
+        // index existing files, least recently used 1st.
+        List<Path> paths = new ArrayList<>();
+        try ( DirectoryStream<Path> directoryStream = Files.newDirectoryStream( directory, "*" + SUFFIX ) )
+        {
+            directoryStream.forEach( paths::add );
+        }
+        paths.sort( ( path1, path2 ) -> lastModifiedTime( path1 ).compareTo( lastModifiedTime( path2 ) ) );
+        for ( Path path : paths )
+        {
+            long size = Files.size( path );
+            diskTier.put( path.getFileName().toString(), size );
+            diskSize += size;
+        }
+        delete( evict() );
+    }
+    
+    /**
+     * A cache with only a memory tier.
+     */
+    private RenderCache()
+    {
+        directory = null;
+        diskCapacity = 0;
+    }
+    
+    /**
+     * The cache shared by the applications of this JVM.
+     * @return the shared cache; if its directory cannot be created or read, 
+     * a cache without a disk tier
+     */
+    static synchronized RenderCache shared()
+    {
+        if ( sharedRenderCache == null )
+        {
+            Path directory = Paths.get( System.getProperty( "renderCache.dir", 
+                    Paths.get( System.getProperty( "user.home" ), ".PositiveIntegerToTreeBijection", "renderCache" ).toString() ) );
+            try
+            {
+                sharedRenderCache = new RenderCache( directory, DEFAULT_DISK_CAPACITY );
+            }
+            catch ( IOException | SecurityException exception )
+            {
+                Logger.getLogger( RenderCache.class.getCanonicalName() )
+                      .log( Level.WARNING, "Cannot use " + directory + "; caching in memory only.", exception );
+                sharedRenderCache = new RenderCache();
+            }
+            Instrumentation.gauge( "renderCache.memoryHits", sharedRenderCache::memoryHits );
+            Instrumentation.gauge( "renderCache.diskHits", sharedRenderCache::diskHits );
+            Instrumentation.gauge( "renderCache.misses", sharedRenderCache::misses );
+        }
+        return sharedRenderCache;
+    }
+
+    
+    /**
+     * The view of the tree that corresponds to number: from memory, from disk, 
+     * or, if neither, rendered and then cached. The PLANETS view is the 1st 
+     * frame of a newly constructed tree.
+     * Callers must not modify the returned image, since it may be shared.
+     * @param number whose tree is viewed
+     * @param viewAs the view
+     * @return the view as an image
+     */
+    BufferedImage view( int number, ViewAs viewAs )
+    {
+        final String key = number + "/" + viewAs + '/' + RENDER_PARAMETERS;
+        final String fileName = fileName( key );
+        final boolean isOnDisk;
+        synchronized ( this )
+        {
+            BufferedImage image = memoryTier.get( key );
+            if ( image != null )
+            {
+                memoryHits++;
+                return image;
+            }
+            isOnDisk = diskTier.containsKey( fileName );
+        }
+        if ( isOnDisk )
+        {
+            // read without holding the lock, so that other lookups do not wait for the disk.
+            BufferedImage image = read( fileName );
+            if ( image != null )
+            {
+                synchronized ( this )
+                {
+                    diskHits++;
+                    diskTier.get( fileName ); // its file is now the most recently used
+                    putInMemory( key, image );
+                }
+                return image;
+            }
+        }
+        synchronized ( this )
+        {
+            misses++;
+        }
+        // render without holding the lock; concurrent misses on 1 key may each render.
+        BufferedImage image = render( number, viewAs );
+        write( fileName, image );
+        synchronized ( this )
+        {
+            putInMemory( key, image );
+        }
+        return image;
+    }
+    
+    /**
+     * Put an image in the memory tier, then evict its least recently used images 
+     * until its size is at most MEMORY_CAPACITY. An image larger than that is not kept.
+     */
+    private void putInMemory( String key, BufferedImage image )
+    {
+        final long size = size( image );
+        if ( size > MEMORY_CAPACITY )
+        {
+            return;
+        }
+        BufferedImage previous = memoryTier.put( key, image );
+        memorySize += size - ( previous == null ? 0 : size( previous ) );
+        for ( Iterator<BufferedImage> iterator = memoryTier.values().iterator(); memorySize > MEMORY_CAPACITY; )
+        {
+            memorySize -= size( iterator.next() );
+            iterator.remove();
+        }
+    }
+    
+    static private long size( BufferedImage image ) { return 4L * image.getWidth() * image.getHeight(); }
+    
+    static private BufferedImage render( int number, ViewAs viewAs )
+    {
+        Tree tree = new Tree( number );
+        switch ( viewAs )
+        {
+            case TREE:          return TreeRenderer.getTreeView( tree );
+            case CIRCULAR_TREE: return TreeRenderer.getCircularTreeView( tree );
+            case PLANETS:       return TreeRenderer.getPlanetsView( tree );
+            default: throw new AssertionError( viewAs );
+        }
+    }
+    
+    /**
+     * A summary of the cache's hit counts and size.
+     * @return a 1-line summary
+     */
+    synchronized String statistics()
+    {
+        return "memory hits: " + memoryHits + "  disk hits: " + diskHits + "  misses: " + misses 
+             + "  memory images: " + memoryTier.size() + "  memory bytes: " + memorySize + "  disk files: " + diskTier.size() + "  disk bytes: " + diskSize;
+    }
+    
+    synchronized long memoryHits() { return memoryHits; }
+    
+    synchronized long diskHits() { return diskHits; }
+    
+    synchronized long misses() { return misses; }
+    
+    //___________________________
+    //
+    // disk tier
+    //___________________________
+    /**
+     * Read a cached file, touching it. It is invoked without holding this lock; 
+     * a file that cannot be read, e.g., because it was just evicted, is removed from the disk tier.
+     * @return the image, or null if the file cannot be read
+     */
+    private BufferedImage read( String fileName )
+    {
+        Path path = directory.resolve( fileName );
+        BufferedImage image = null;
+        try
+        {
+            image = ImageIO.read( path.toFile() );
+            if ( image != null )
+            {
+                Files.setLastModifiedTime( path, FileTime.fromMillis( System.currentTimeMillis() ) );
+            }
+        }
+        catch ( IOException ioException )
+        {
+            Logger.getLogger( RenderCache.class.getCanonicalName() ).log( Level.WARNING, "Cannot read " + path, ioException );
+        }
+        if ( image == null )
+        {
+            synchronized ( this )
+            {
+                remove( fileName );
+            }
+        }
+        return image;
+    }
+    
+    /**
+     * Write the image to a temporary file, then move it into place, so that 
+     * readers, including other processes, never see a partial file.
+     */
+    private void write( String fileName, BufferedImage image )
+    {
+        if ( directory == null )
+        {
+            return;
+        }
+        Path temporary = null;
+        try
+        {
+            temporary = Files.createTempFile( directory, "render", ".tmp" );
+            ImageIO.write( image, "png", temporary.toFile() );
+            long size = Files.size( temporary );
+            Files.move( temporary, directory.resolve( fileName ), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            final List<String> evicted;
+            synchronized ( this )
+            {
+                Long previousSize = diskTier.put( fileName, size );
+                diskSize += size - ( previousSize == null ? 0 : previousSize );
+                evicted = evict();
+            }
+            delete( evicted );
+        }
+        catch ( IOException ioException )
+        {
+            Logger.getLogger( RenderCache.class.getCanonicalName() ).log( Level.WARNING, "Cannot cache " + fileName, ioException );
+            deleteTemporary( temporary );
+        }
+    }
+    
+    static private void deleteTemporary( Path temporary )
+    {
+        if ( temporary == null )
+        {
+            return;
+        }
+        try
+        {
+            Files.deleteIfExists( temporary );
+        }
+        catch ( IOException ioException )
+        {
+            Logger.getLogger( RenderCache.class.getCanonicalName() ).log( Level.WARNING, "Cannot delete " + temporary, ioException );
+        }
+    }
+    
+    /**
+     * Remove the least recently used files from the disk tier until its size is at most 
+     * diskCapacity; the invoking thread holds this lock. The files are deleted by delete, 
+     * after the lock is released. 
+     * @return the names of the evicted files
+     */
+    private List<String> evict()
+    {
+        List<String> evicted = new ArrayList<>();
+        for ( Iterator<Map.Entry<String, Long>> iterator = diskTier.entrySet().iterator(); diskSize > diskCapacity && iterator.hasNext(); )
+        {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            diskSize -= eldest.getValue();
+            evicted.add( eldest.getKey() );
+        }
+        return evicted;
+    }
+    
+    /**
+     * Delete evicted files; it is invoked without holding this lock. If a file was 
+     * rewritten since it was evicted, the rewritten file is deleted, and a later read 
+     * of it removes it from the disk tier.
+     */
+    private void delete( List<String> evicted )
+    {
+        for ( String fileName : evicted )
+        {
+            try
+            {
+                Files.deleteIfExists( directory.resolve( fileName ) );
+            }
+            catch ( IOException ioException )
+            {
+                Logger.getLogger( RenderCache.class.getCanonicalName() ).log( Level.WARNING, "Cannot evict " + fileName, ioException );
+            }
+        }
+    }
+    
+    private void remove( String fileName )
+    {
+        Long size = diskTier.remove( fileName );
+        if ( size != null )
+        {
+            diskSize -= size;
+        }
+    }
+    
+    static private FileTime lastModifiedTime( Path path )
+    {
+        try
+        {
+            return Files.getLastModifiedTime( path );
+        }
+        catch ( IOException ioException )
+        {
+            return FileTime.fromMillis( 0 );
+        }
+    }
+    
+    static private String fileName( String key )
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( key.getBytes( StandardCharsets.UTF_8 ) );
+            StringBuilder stringBuilder = new StringBuilder( 2 * digest.length + SUFFIX.length() );
+            for ( byte b : digest )
+            {
+                stringBuilder.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+            }
+            return stringBuilder.append( SUFFIX ).toString();
+        }
+        catch ( NoSuchAlgorithmException noSuchAlgorithmException )
+        {
+            throw new AssertionError( noSuchAlgorithmException ); // every Java platform supports SHA-1
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A tree together with the views that the Viewer displays: 
+ * the lines of its text view, which are formatted as they are displayed, 
+ * and the layout of its circular tree view.
+ * @author Peter Cappello
+ */
+final class RenderedTree 
+{
+    private final Tree tree;
+    private final TreeTextWriter.Lines textView;
+    private final TreeLayout circularTreeLayout;
+    private final long renderTime; // ns to build the tree & its views
+    
+    private RenderedTree( Tree tree, TreeTextWriter.Lines textView, TreeLayout circularTreeLayout, long renderTime )
+    {
+        this.tree = tree;
+        this.textView = textView;
+        this.circularTreeLayout = circularTreeLayout;
+        this.renderTime = renderTime;
+    }
+    
+    /**
+     * Build the tree that corresponds to number, index the lines of its text view, and
+     * lay out its circular tree view.
+     * It may be invoked off the event dispatch thread.
+     * @param number the integer whose tree is rendered
+     * @return the tree and its views
+     * @throws CancellationException if the invoking thread is interrupted
+     */
+    static RenderedTree render( int number ) throws CancellationException
+    {
+        long startTime = System.nanoTime();
+        Tree tree = new Tree( number );
+        checkInterrupted( number );
+        TreeTextWriter.Lines textView = new TreeTextWriter.Lines( tree );
+        checkInterrupted( number );
+        TreeLayout circularTreeLayout = new TreeLayout( tree );
+        circularTreeLayout.nodeIndex(); // build it off the event dispatch thread
+        return new RenderedTree( tree, textView, circularTreeLayout, System.nanoTime() - startTime );
+    }
+    
+    static private void checkInterrupted( int number ) throws CancellationException
+    {
+        if ( Thread.currentThread().isInterrupted() )
+        {
+            throw new CancellationException( "Rendering " + number + " was interrupted." );
+        }
+    }
+    
+    Tree tree() { return tree; }
+    
+    TreeTextWriter.Lines textView() { return textView; }
+    
+    TreeLayout circularTreeLayout() { return circularTreeLayout; }
+    
+    long renderTime() { return renderTime; }
+}
@@ -0,0 +1,323 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Converts the integers in [1, N] in shards, each by a BulkConverter in a worker JVM 
+ * of its own, so that no JVM's heap or prime table need hold the whole range.
+ * <pre>
+ * Usage: ShardedBatchRunner -n N -dir directory [-shards k] [-workers w] 
+ *                           [-to parentheses|succinct|json|metrics] [-jvm "worker JVM options"]
+ * </pre>
+ * Shard i is written to directory/shard-i.txt, 1 line per integer, as by BulkConverter. 
+ * A shard is written to a ".part" file, which is renamed when its worker succeeds; 
+ * the shard is then recorded as done in the checkpoint manifest, directory/manifest.properties.
+ * A run that is restarted in the same directory converts only the shards that are not done, 
+ * so a run survives failed workers and restarts. When every shard is done, the shards are 
+ * concatenated, in order, into directory/merged.txt.
+ * <p>
+ * N is at most Integer.MAX_VALUE, since trees are constructed for ints.
+ * </p>
+ * @author Peter Cappello
+ */
+public final class ShardedBatchRunner 
+{
+    static private final String MANIFEST = "manifest.properties";
+    static private final String MERGED = "merged.txt";
+    
+    private final int size;
+    private final int nShards;
+    private final BulkConverter.Conversion conversion;
+    private final Path directory;
+    private final Path manifestPath;
+    private final Properties manifest = new Properties();
+    private final Logger logger = Logger.getLogger( getClass().getCanonicalName() );
+    
+    /**
+     * Run, or resume, a sharded conversion; exit with status 1 if a shard failed.
+     * @param args see the class comment
+     * @throws IOException if the manifest or a shard cannot be read or written
+     * @throws InterruptedException if interrupted while waiting for a worker
+     */
+    public static void main( String[] args ) throws IOException, InterruptedException
+    {
+        int size = 0;
+        String directory = null;
+        int nShards = 0;
+        int nWorkers = Math.max( 1, Runtime.getRuntime().availableProcessors() / 2 );
+        BulkConverter.Conversion conversion = BulkConverter.Conversion.METRICS;
+        List<String> jvmOptions = new ArrayList<>();
+        for ( int i = 0; i < args.length; i++ )
+        {
+            switch ( args[ i ] )
+            {
+                case "-n":       size = Integer.parseInt( args[ ++i ] ); break;
+                case "-dir":     directory = args[ ++i ]; break;
+                case "-shards":  nShards = Integer.parseInt( args[ ++i ] ); break;
+                case "-workers": nWorkers = Integer.parseInt( args[ ++i ] ); break;
+                case "-to":      conversion = BulkConverter.Conversion.valueOf( args[ ++i ].toUpperCase() ); break;
+                case "-jvm":     jvmOptions.addAll( Arrays.asList( args[ ++i ].trim().split( "\\s+" ) ) ); break;
+                default: throw new IllegalArgumentException( "Unknown argument: " + args[ i ] );
+            }
+        }
+        if ( directory == null )
+        {
+            throw new IllegalArgumentException( "Usage: ShardedBatchRunner -n N -dir directory [-shards k] [-workers w] "
+                    + "[-to parentheses|succinct|json|metrics] [-jvm \"worker JVM options\"]" );
+        }
+        if ( nShards == 0 )
+        {
+            nShards = Math.min( size, Math.max( nWorkers, (int) ( ( size + ( 1L << 24 ) - 1 ) >> 24 ) ) ); // about 16M integers per shard
+        }
+        ShardedBatchRunner runner = new ShardedBatchRunner( size, nShards, conversion, Paths.get( directory ) );
+        System.exit( runner.run( nWorkers, jvmOptions ) ? 0 : 1 );
+    }
+    
+    /**
+     * @param size N, the greatest integer converted
+     * @param nShards the number of shards
+     * @param conversion of each integer
+     * @param directory of the shards and the manifest; it is created if absent
+     * @throws IOException if the directory or its manifest cannot be read or written
+     * @throws IllegalArgumentException if the directory's manifest is of a different run.
+     */
+    ShardedBatchRunner( int size, int nShards, BulkConverter.Conversion conversion, Path directory ) 
+            throws IOException, IllegalArgumentException
+    {
+        if ( size < 1 || nShards < 1 || nShards > size )
+        {
+            throw new IllegalArgumentException( "Required: 1 <= shards <= N; N = " + size + ", shards = " + nShards );
+        }
+        if ( conversion == BulkConverter.Conversion.INTEGER )
+        {
+            throw new IllegalArgumentException( "A range of integers cannot be converted to integers." );
+        }
+        this.size = size;
+        this.nShards = nShards;
+        this.conversion = conversion;
+        this.directory = Files.createDirectories( directory );
+        manifestPath = directory.resolve( MANIFEST );
+        if ( Files.exists( manifestPath ) )
+        {
+            try ( InputStream in = Files.newInputStream( manifestPath ) )
+            {
+                manifest.load( in );
+            }
+            checkManifest( "n", size );
+            checkManifest( "shards", nShards );
+            checkManifest( "conversion", conversion );
+        }
+        else
+        {
+            manifest.setProperty( "n", String.valueOf( size ) );
+            manifest.setProperty( "shards", String.valueOf( nShards ) );
+            manifest.setProperty( "conversion", conversion.name() );
+            saveManifest();
+        }
+    }
+    
+    private void checkManifest( String key, Object value )
+    {
+        if ( ! String.valueOf( value ).equals( manifest.getProperty( key ) ) )
+        {
+            throw new IllegalArgumentException( directory + " holds a run whose " + key + " is " 
+                    + manifest.getProperty( key ) + ", not " + value + '.' );
+        }
+    }
+    
+    /**
+     * Convert the shards that are not done, and, if then every shard is done, merge them.
+     * @param nWorkers the number of worker JVMs that run at once
+     * @param jvmOptions of each worker JVM, e.g., -Xmx4g
+     * @return true if and only if every shard is done.
+     * @throws IOException if a shard cannot be merged
+     * @throws InterruptedException if interrupted while waiting for a worker; running workers are destroyed.
+     */
+    boolean run( int nWorkers, List<String> jvmOptions ) throws IOException, InterruptedException
+    {
+        List<Integer> pending = new ArrayList<>();
+        for ( int shard = 0; shard < nShards; shard++ )
+        {
+            if ( ! isDone( shard ) )
+            {
+                pending.add( shard );
+            }
+        }
+        logger.log( Level.INFO, "{0} of {1} shards are done; converting {2} with {3} workers.", 
+                    new Object[]{ nShards - pending.size(), nShards, pending.size(), nWorkers } );
+        final int workerThreads = Math.max( 1, Runtime.getRuntime().availableProcessors() / nWorkers );
+        ExecutorService executorService = Executors.newFixedThreadPool( nWorkers );
+        List<Future<Boolean>> results = new ArrayList<>();
+        try
+        {
+            for ( final int shard : pending )
+            {
+                results.add( executorService.submit( () -> convert( shard, workerThreads, jvmOptions ) ) );
+            }
+            int failures = 0;
+            for ( Future<Boolean> result : results )
+            {
+                failures += result.get() ? 0 : 1;
+            }
+            if ( failures > 0 )
+            {
+                logger.log( Level.SEVERE, "{0} shards failed; rerun to resume.", failures );
+                return false;
+            }
+        }
+        catch ( ExecutionException executionException )
+        {
+            throw new IOException( "Converting a shard failed.", executionException.getCause() );
+        }
+        finally
+        {
+            executorService.shutdownNow(); // interrupts the threads waiting for workers, which destroy them
+        }
+        merge();
+        return true;
+    }
+    
+    /** @return the least integer of the shard. */
+    long from( int shard ) { return 1 + shard * (long) size / nShards; }
+    
+    /** @return the greatest integer of the shard. */
+    long to( int shard ) { return ( shard + 1L ) * size / nShards; }
+    
+    private Path shardPath( int shard ) { return directory.resolve( String.format( "shard-%05d.txt", shard ) ); }
+    
+    /**
+     * A shard is done if the manifest records it, and its file has the recorded size.
+     */
+    private synchronized boolean isDone( int shard ) throws IOException
+    {
+        final String bytes = manifest.getProperty( "shard." + shard + ".bytes" );
+        final Path path = shardPath( shard );
+        return bytes != null && Files.exists( path ) && Files.size( path ) == Long.parseLong( bytes );
+    }
+    
+    private synchronized void markDone( int shard, long bytes ) throws IOException
+    {
+        manifest.setProperty( "shard." + shard + ".bytes", String.valueOf( bytes ) );
+        saveManifest();
+    }
+    
+    /**
+     * Replace the manifest atomically, so that a crash leaves either the old or the new one.
+     */
+    private void saveManifest() throws IOException
+    {
+        Path temporary = directory.resolve( MANIFEST + ".tmp" );
+        try ( OutputStream out = Files.newOutputStream( temporary ) )
+        {
+            manifest.store( out, "ShardedBatchRunner checkpoint" );
+        }
+        Files.move( temporary, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+    
+    /**
+     * Convert a shard in a worker JVM.
+     * @return true if and only if the worker succeeded.
+     */
+    private boolean convert( int shard, int workerThreads, List<String> jvmOptions ) throws IOException, InterruptedException
+    {
+        final Path path = shardPath( shard );
+        final Path part = Paths.get( path + ".part" );
+        final Path log = Paths.get( path + ".log" );
+        List<String> command = new ArrayList<>();
+        command.add( Paths.get( System.getProperty( "java.home" ), "bin", "java" ).toString() );
+        command.addAll( jvmOptions );
+        command.addAll( Arrays.asList( "-cp", System.getProperty( "java.class.path" ), BulkConverter.class.getName(),
+                "-to", conversion.name(), "-threads", String.valueOf( workerThreads ),
+                "-range", String.valueOf( from( shard ) ), String.valueOf( to( shard ) ) ) );
+        final long startTime = System.nanoTime();
+        Process process = new ProcessBuilder( command )
+                .redirectOutput( part.toFile() )
+                .redirectError( ProcessBuilder.Redirect.appendTo( log.toFile() ) )
+                .start();
+        final int exitValue;
+        try
+        {
+            exitValue = process.waitFor();
+        }
+        finally
+        {
+            process.destroy();
+        }
+        if ( exitValue != 0 )
+        {
+            logger.log( Level.WARNING, "Shard {0} failed with exit value {1}; see {2}", new Object[]{ shard, exitValue, log } );
+            return false;
+        }
+        Files.move( part, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        markDone( shard, Files.size( path ) );
+        logger.log( Level.INFO, "Shard {0} [{1}, {2}] done in {3} s.", new Object[]{ shard, 
+                String.valueOf( from( shard ) ), String.valueOf( to( shard ) ), ( System.nanoTime() - startTime ) / 1000000000 } );
+        return true;
+    }
+    
+    /**
+     * Concatenate the shards, in order, into the merged file.
+     */
+    private void merge() throws IOException
+    {
+        final Path merged = directory.resolve( MERGED );
+        final Path temporary = directory.resolve( MERGED + ".tmp" );
+        try ( FileChannel out = FileChannel.open( temporary, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ) )
+        {
+            for ( int shard = 0; shard < nShards; shard++ )
+            {
+                try ( FileChannel in = FileChannel.open( shardPath( shard ), StandardOpenOption.READ ) )
+                {
+                    for ( long position = 0, size = in.size(); position < size; )
+                    {
+                        position += in.transferTo( position, size - position, out );
+                    }
+                }
+            }
+        }
+        Files.move( temporary, merged, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        logger.log( Level.INFO, "Merged {0} shards into {1}", new Object[]{ nShards, merged } );
+    }
+}
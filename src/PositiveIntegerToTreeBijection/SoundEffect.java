@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A sound effect, decoded once, and played from a small pool of open clips 
+ * that are rewound, rather than reopened, for each play.
+ * Clips are opened and played on a single audio thread, never on the caller's.
+ * @author Peter Cappello
+ */
+final class SoundEffect 
+{
+    static private final int POOL_SIZE = 2; // allows a sound to overlap its previous play
+    static private final ExecutorService AUDIO_THREAD = Executors.newSingleThreadExecutor( runnable -> 
+    {
+        Thread thread = new Thread( runnable, "Sound effects" );
+        thread.setDaemon( true );
+        return thread;
+    });
+    
+    private final String name;
+    private final AudioFormat format;
+    private final byte[] samples;
+    
+    // confined to AUDIO_THREAD
+    private final Clip[] clips = new Clip[ POOL_SIZE ];
+    private int nextClip;
+    private boolean unavailable;
+    
+    private SoundEffect( String name, AudioFormat format, byte[] samples )
+    {
+        this.name = name;
+        this.format = format;
+        this.samples = samples;
+    }
+    
+    /**
+     * Decode a sound resource.
+     * @param url of the audio file
+     * @return the sound effect
+     * @throws IOException if the resource cannot be read
+     * @throws UnsupportedAudioFileException if the resource is not a supported audio format
+     */
+    static SoundEffect load( URL url ) throws IOException, UnsupportedAudioFileException
+    {
+        try ( AudioInputStream audioIn = AudioSystem.getAudioInputStream( url ) )
+        {
+            return new SoundEffect( url.getPath(), audioIn.getFormat(), readAll( audioIn ) );
+        }
+    }
+    
+    private static byte[] readAll( InputStream inputStream ) throws IOException
+    {
+        ByteArrayOutputStream samples = new ByteArrayOutputStream();
+        byte[] buffer = new byte[ 1 << 14 ];
+        for ( int count; ( count = inputStream.read( buffer ) ) > 0; )
+        {
+            samples.write( buffer, 0, count );
+        }
+        return samples.toByteArray();
+    }
+    
+    /**
+     * Play the sound, asynchronously.
+     */
+    void play() { AUDIO_THREAD.execute( this::playOnAudioThread ); }
+    
+    private void playOnAudioThread()
+    {
+        if ( unavailable )
+        {
+            return;
+        }
+        try
+        {
+            Clip clip = clips[ nextClip ];
+            if ( clip == null )
+            {
+                clip = AudioSystem.getClip();
+                clip.open( format, samples, 0, samples.length );
+                clips[ nextClip ] = clip;
+            }
+            nextClip = ( nextClip + 1 ) % POOL_SIZE;
+            clip.stop();
+            clip.setFramePosition( 0 );
+            clip.start();
+        }
+        catch ( LineUnavailableException | IllegalArgumentException | SecurityException exception )
+        {
+            unavailable = true;
+            Logger.getLogger( SoundEffect.class.getCanonicalName() )
+                  .log( Level.WARNING, "Sound " + name + " is unavailable.", exception );
+        }
+    }
+}
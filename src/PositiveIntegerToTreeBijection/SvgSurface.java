@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * A DrawingSurface that streams an SVG document to a Writer: 
+ * each element is written as it is drawn; no document model is kept in memory.
+ * @author Peter Cappello
+ */
+final class SvgSurface implements DrawingSurface, AutoCloseable
+{
+    private final Writer writer;
+    private String color = rgb( Color.BLACK );
+    
+    /**
+     * Writes the SVG prolog.
+     * @param writer to which the document is streamed; it should be buffered.
+     * @param width of the document in pixels
+     * @param height of the document in pixels
+     */
+    SvgSurface( Writer writer, int width, int height )
+    {
+        this.writer = writer;
+        write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" );
+        write( "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height 
+             + "\" viewBox=\"0 0 " + width + ' ' + height + "\">\n" );
+    }
+
+    @Override
+    public void setColor( Color color ) { this.color = rgb( color ); }
+
+    @Override
+    public void drawLine( int x1, int y1, int x2, int y2 )
+    {
+        write( "<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2 
+             + "\" stroke=\"" + color + "\"/>\n" );
+    }
+
+    @Override
+    public void drawOval( int x, int y, int width, int height ) { ellipse( x, y, width, height, "fill=\"none\" stroke=\"" + color + '"' ); }
+
+    @Override
+    public void fillOval( int x, int y, int width, int height ) { ellipse( x, y, width, height, "fill=\"" + color + '"' ); }
+
+    @Override
+    public void drawString( String string, int x, int y )
+    {
+        write( "<text x=\"" + x + "\" y=\"" + y + "\" fill=\"" + color + "\">" + escape( string ) + "</text>\n" );
+    }
+    
+    /**
+     * Writes the SVG epilog and flushes the writer; the writer is not closed.
+     */
+    @Override
+    public void close()
+    {
+        write( "</svg>\n" );
+        try
+        {
+            writer.flush();
+        }
+        catch ( IOException ioException )
+        {
+            throw new UncheckedIOException( ioException );
+        }
+    }
+    
+    private void ellipse( int x, int y, int width, int height, String paint )
+    {
+        // Graphics ovals are given by their bounding box; SVG ellipses by center & radii.
+        write( "<ellipse cx=\"" + ( x + width / 2.0 ) + "\" cy=\"" + ( y + height / 2.0 ) 
+             + "\" rx=\"" + ( width / 2.0 ) + "\" ry=\"" + ( height / 2.0 ) + "\" " + paint + "/>\n" );
+    }
+    
+    private void write( String string )
+    {
+        try
+        {
+            writer.write( string );
+        }
+        catch ( IOException ioException )
+        {
+            throw new UncheckedIOException( ioException );
+        }
+    }
+    
+    static private String rgb( Color color )
+    {
+        return "rgb(" + color.getRed() + ',' + color.getGreen() + ',' + color.getBlue() + ')';
+    }
+    
+    static private String escape( String string )
+    {
+        return string.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" );
+    }
+}
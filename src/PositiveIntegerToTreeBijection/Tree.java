@@ -23,20 +23,16 @@
  */
 package PositiveIntegerToTreeBijection;
 
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.image.BufferedImage;
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import static PositiveIntegerToTreeBijection.Viewer.IMAGE_VIEWPORT_SIZE;
 
 /**
  * Recursively maps a natural possibleFactor to a rooted, un-oriented tree.
@@ -53,32 +49,45 @@ public final class Tree
      */
     static public final boolean SHOW_ORBIT = true;
     static public final boolean LABEL_NODES = false;
-    static public       int CIRCULAR_TREE_WIDTH;
     
+    /** The rank of the largest prime that is an int: the number of primes < 2^31. */
+    static final int MAX_PRIME_RANK = 105097565;
     static private final int PRIMES_INITIAL_CAPACITY = 1 << 10;
+    static private final int PROGRESS_MASK = ( 1 << 12 ) - 1; // check for interruption every 4096 primes
     static private final double ONE_THIRD = 1.0 / 3.0;
     static private final double FRAME_RATE = 16;
     static private final double G = 0.1; // Gravitational constant
     static private final double BASE_ANGLE = 1.0 / FRAME_RATE;
-    static private final double SCALE = 8;
-    static private final double OFFESET = IMAGE_VIEWPORT_SIZE / 2;
-    static private List<Integer> primes = new ArrayList<>( PRIMES_INITIAL_CAPACITY );
-    static private Map<Integer, Integer> ranks = new HashMap<>( PRIMES_INITIAL_CAPACITY );
-    // cache of PositiveIntegerTree objects
-    static private final Map<Integer, Tree> integerToPositiveIntegerTreeMap = new HashMap<>();
+    /* The prime table: primes[ rank ] is the prime of that rank, for rank in [1, primeCount]; 
+     * primes[ 0 ] is UNUSED. Growing the table is guarded by the Tree class lock. Lookups do 
+     * not lock: a prime is stored before primeCount, which is volatile, counts it, and a larger 
+     * array is published, holding every counted prime, before primeCount grows past the old 
+     * array, so a lookup that reads primeCount, then primes, sees a table at least that large.
+     * Trees thus may be constructed concurrently, e.g., off the event dispatch thread.
+     * The table grows a sieve segment at a time (see PrimeSieve), so it may hold more 
+     * primes than were requested. Growing the table stops with a CancellationException when the growing 
+     * thread is interrupted; the table then holds a consistent prefix of the primes.
+     */
+    static private volatile int[] primes = new int[ PRIMES_INITIAL_CAPACITY ];
+    // number of primes in the table
+    static private volatile int primeCount;
+    // grows the prime table past its initial primes
+    static private final PrimeSieve SIEVE = PrimeSieve.create();
     
     /**
      * The prime number whose index is rank.
      * @param rank of the prime number returned.
      * @return the prime number whose index is rank.
+     * @throws IllegalArgumentException if rank &lt; 1, or rank &gt; MAX_PRIME_RANK: that prime is not an int.
      */
-    static public int prime( int rank )
+    static public int prime( int rank ) throws IllegalArgumentException
     {
-        if ( rank >= primes.size() - 1 )
+        checkRank( rank );
+        if ( rank > primeCount )
         {
-            increasePrimesTo( rank );
+            growToRank( rank );
         }
-        return primes.get( rank );
+        return primes[ rank ];
     }
     
     /**
@@ -89,40 +98,187 @@ public final class Tree
      */
     static public int rank( int prime ) throws IllegalArgumentException
     {
-        if ( prime >= primes.get( primes.size() - 1 ) )
+        int count = primeCount;
+        int[] table = primes;
+        if ( prime > table[ count ] )
         {
-            increaseRanksTo( prime );
+            growToPrime( prime );
+            count = primeCount;
+            table = primes;
         }
-        Integer rank = ranks.get( prime );
-        if ( rank == null )
+        final int rank = Arrays.binarySearch( table, 1, count + 1, prime );
+        if ( rank < 0 )
         {
-            throw new IllegalArgumentException();
+            throw new IllegalArgumentException( prime + " is not a prime." );
         }
         return rank;
     }
     
-    static void initialize() { setPrimesArray(); }
+    /**
+     * The primes of a batch of ranks: out[ i ] = prime( ranks[ i ] ). 
+     * The table is grown at most once, to the largest rank; lookups then do not lock.
+     * @param ranks of the primes
+     * @param out the primes; it may be ranks.
+     * @throws IllegalArgumentException if an element of ranks is &lt; 1 or &gt; MAX_PRIME_RANK.
+     */
+    static public void prime( int[] ranks, int[] out ) throws IllegalArgumentException
+    {
+        int maxRank = 0;
+        for ( int rank : ranks )
+        {
+            checkRank( rank );
+            maxRank = Math.max( maxRank, rank );
+        }
+        if ( maxRank > primeCount )
+        {
+            growToRank( maxRank );
+        }
+        final int[] table = primes;
+        for ( int i = 0; i < ranks.length; i++ )
+        {
+            out[ i ] = table[ ranks[ i ] ];
+        }
+    }
+    
+    /**
+     * The ranks of a batch of primes: out[ i ] = rank( primes[ i ] ). 
+     * The table is grown at most once, to the largest prime. The primes are then 
+     * merged, in increasing order, with the table: each is found by a galloping search 
+     * from the previous one, so a sorted batch of k primes among the first n is ranked
+     * in O( k log( n / k ) ) time, in 1 pass over the table. An unsorted batch is sorted first.
+     * @param primes whose ranks are sought
+     * @param out the ranks; it may be primes.
+     * @throws IllegalArgumentException if an element of primes is not a prime.
+     */
+    static public void rank( int[] primes, int[] out ) throws IllegalArgumentException
+    {
+        int maxPrime = 0;
+        boolean isSorted = true;
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            isSorted &= i == 0 || primes[ i - 1 ] <= primes[ i ];
+            maxPrime = Math.max( maxPrime, primes[ i ] );
+        }
+        int count = primeCount;
+        int[] table = Tree.primes;
+        if ( maxPrime > table[ count ] )
+        {
+            growToPrime( maxPrime );
+            count = primeCount;
+            table = Tree.primes;
+        }
+        if ( isSorted )
+        {
+            for ( int i = 0, rank = 1; i < primes.length; i++ )
+            {
+                rank = gallop( table, rank, count, primes[ i ] );
+                out[ i ] = rank;
+            }
+            return;
+        }
+        // sort ( prime, index ) pairs, packed in longs, then merge.
+        long[] sorted = new long[ primes.length ];
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            sorted[ i ] = (long) primes[ i ] << 32 | i;
+        }
+        Arrays.sort( sorted );
+        for ( int i = 0, rank = 1; i < sorted.length; i++ )
+        {
+            rank = gallop( table, rank, count, (int) ( sorted[ i ] >>> 32 ) );
+            out[ (int) sorted[ i ] ] = rank;
+        }
+    }
+    
+    static private void checkRank( int rank ) throws IllegalArgumentException
+    {
+        if ( rank < 1 )
+        {
+            throw new IllegalArgumentException( "A prime's rank is positive: " + rank );
+        }
+        if ( rank > MAX_PRIME_RANK )
+        {
+            throw new IllegalArgumentException( "The prime with rank " + rank + " is not an int: the largest int prime has rank " + MAX_PRIME_RANK + '.' );
+        }
+    }
     
     /**
-     * Initialize the primes List and the ranks map with the first 
-     * PRIMES_INITIAL_CAPACITY prime numbers and their ranks.
-     * The index of a prime is its rank: primes.get( 0 ) is UNUSED.
+     * The rank of prime, which is at least from: the search gallops, in steps that double, 
+     * from from, then binary searches the last step.
+     * @throws IllegalArgumentException if prime is not a prime.
+     */
+    static private int gallop( int[] table, int from, int count, int prime ) throws IllegalArgumentException
+    {
+        int low = from, step = 1;
+        while ( low + step <= count && table[ low + step ] < prime )
+        {
+            low += step;
+            step <<= 1;
+        }
+        final int rank = Arrays.binarySearch( table, low, Math.min( low + step, count ) + 1, prime );
+        if ( rank < 0 )
+        {
+            throw new IllegalArgumentException( prime + " is not a prime." );
+        }
+        return rank;
+    }
+    
+    static synchronized void initialize() 
+    { 
+        if ( primeCount == 0 )
+        {
+            setPrimesArray(); 
+        }
+    }
+    
+    /**
+     * The number of primes in the prime table. It does not wait for the table
+     * to stop growing, so it may be used to report the progress of its growth.
+     * @return the number of primes in the prime table.
+     */
+    static int primeCount() { return primeCount; }
+    
+    /**
+     * The size of the prime table's array, which may exceed its primes. 
+     * @return the size in bytes of the prime table's array
+     */
+    static long primeTableBytes() { return 4L * primes.length; }
+    
+    /**
+     * Initialize the prime table with the first PRIMES_INITIAL_CAPACITY - 1 prime numbers.
+     * The index of a prime is its rank: primes[ 0 ] is UNUSED.
      */
     static void setPrimesArray()
     {
-        primes.add( 1 ); 
-        primes.add( 2 ); ranks.put( 2, 1 );
-        primes.add( 3 ); ranks.put( 3, 2 );
-        for ( int number = 5, rank = 3; rank < PRIMES_INITIAL_CAPACITY; number += 2 )
+        primes[ 0 ] = 1; 
+        append( 2 );
+        append( 3 );
+        for ( int number = 5; primeCount < PRIMES_INITIAL_CAPACITY - 1; number += 2 )
         {
             if ( isPrime( number ) )
             {
-                primes.add( number); ranks.put( number, rank );
-                rank++;
+                append( number );
             }
         }
     }
     
+    /**
+     * Append a prime to the table; the invoking thread holds the Tree class lock, 
+     * or is initializing the table.
+     */
+    static private void append( int prime )
+    {
+        final int rank = primeCount + 1;
+        int[] table = primes;
+        if ( rank == table.length )
+        {
+            table = Arrays.copyOf( table, 2 * table.length );
+            primes = table; // publish the larger table before counting past the old one
+        }
+        table[ rank ] = prime;
+        primeCount = rank;
+    }
+    
     /**
      * Determines whether ODD integer number is prime.
      * @param number an ODD integer
@@ -131,7 +287,8 @@ public final class Tree
     static private boolean isPrime( final int number )
     {
         final int maxFactor = (int) Math.sqrt( number );
-        for ( int rank = 2, prime = 3; prime <= maxFactor; prime = primes.get( ++rank ) )
+        final int[] table = primes;
+        for ( int rank = 2, prime = 3; prime <= maxFactor; prime = table[ ++rank ] )
         {
             if ( number % prime == 0 )
             {
@@ -141,43 +298,63 @@ public final class Tree
         return true;
     }
     
-    static private void increasePrimesTo( int upperRank )
+    static synchronized private void growToRank( int upperRank )
     { 
+        if ( upperRank <= primeCount )
+        {
+            return; // another thread grew it
+        }
+        initialize();
+        final Instrumentation.PrimeTableGrowthEvent event = Instrumentation.primeTableGrowthStarted();
+        final int initialPrimeCount = primeCount;
         long startTime = System.nanoTime();
-        int rank = primes.size();
-        for ( int number = primes.get( rank - 1 ) + 2; rank <= upperRank; number += 2 )
+        // the table cannot grow past the largest int prime, whose rank is MAX_PRIME_RANK
+        for ( long sieved = primes[ primeCount ]; primeCount < upperRank && sieved < Integer.MAX_VALUE; )
         {
-            rank = processPrimeCandidate( number, rank );
+            sieved = sieveSegment();
         }
-        assert upperRank == primes.size() - 1;
         long stopTime = System.nanoTime();
+        Instrumentation.primeTableGrown( event, initialPrimeCount, primeCount );
         Logger.getLogger(Tree.class.getCanonicalName() )
-              .log(Level.INFO, "Increased # of primes to {0} in {1} ms.", new Object[]{primes.size() - 1, (stopTime - startTime) / ( 1024 * 1024 )});
+              .log(Level.INFO, "Increased # of primes to {0} in {1} ms.", new Object[]{primeCount, (stopTime - startTime) / 1000000});
     }
     
-    static private void increaseRanksTo( int upperPrime )
+    static synchronized private void growToPrime( int upperPrime )
     {
+        if ( upperPrime <= primes[ primeCount ] )
+        {
+            return; // another thread grew it
+        }
+        initialize();
+        final Instrumentation.PrimeTableGrowthEvent event = Instrumentation.primeTableGrowthStarted();
+        final int initialPrimeCount = primeCount;
         long startTime = System.nanoTime();
-        int rank = primes.size();
-        for ( int number = primes.get( rank - 1 ) + 2; number <= upperPrime; number += 2 )
+        for ( long sieved = primes[ primeCount ]; sieved < upperPrime; )
         {
-            rank = processPrimeCandidate( number, rank );
+            sieved = sieveSegment();
         }
-        assert upperPrime == primes.get( primes.size() - 1 );
         long stopTime = System.nanoTime();
+        Instrumentation.primeTableGrown( event, initialPrimeCount, primeCount );
         Logger.getLogger(Tree.class.getCanonicalName() )
-              .log(Level.INFO, "Increased primes to {0} in {1} ms.", new Object[]{primes.get( primes.size() - 1 ), (stopTime - startTime) / ( 1024 * 1024 )});
+              .log(Level.INFO, "Increased primes to {0} in {1} ms.", new Object[]{primes[ primeCount ], (stopTime - startTime) / 1000000});
     }
     
-    static private int processPrimeCandidate( int primeCandidate, int rank )
+    /**
+     * Append the primes of the sieve segment that follows the table's largest prime.
+     * The table's primes are the sieve's base primes: a segment ends at or before 
+     * the square of the largest of them.
+     * @return the largest integer sieved
+     */
+    static private long sieveSegment()
     {
-        if ( isPrime( primeCandidate ) )
+        return SIEVE.sieveSegment( primes[ primeCount ], primes, primeCount, prime -> 
         {
-            primes.add( primeCandidate ); 
-            ranks.put(  primeCandidate, rank );
-            return rank + 1;
-        }
-        return rank;
+            append( prime );
+            if ( ( primeCount & PROGRESS_MASK ) == 0 && Thread.currentThread().isInterrupted() )
+            {
+                throw new CancellationException( "Prime table growth was interrupted at rank " + primeCount + '.' );
+            }
+        });
     }
     
     //___________________________
@@ -186,11 +363,13 @@ public final class Tree
     //___________________________
     private boolean isRoot;
     private boolean isPositive;
-    private int positiveInteger;
+    private int positiveInteger; // 0 if the tree's integer, given in factored form, is not an int
+    private FactoredInteger factoredInteger; // the factored form from which a root was constructed, if any
     private Tree parent;
     private List<Tree> factorTrees;
     private int height;
     private int width;
+    private int nodeCount;
     
     //___________________________
     //
@@ -205,7 +384,6 @@ public final class Tree
     private double diameter;    // diameter of this body
     private double orbitRadius; // radius of its orbit around its PARENT.
     private double stepSize;    // radians incremented per time step
-    private Color color = Color.BLUE; // of body
     //___________________________
     //
     // mutable planet view attributes
@@ -228,6 +406,7 @@ public final class Tree
     {
         this.parent = parent;
         isRoot = parent == null;
+        final Instrumentation.TreeConstructionEvent event = isRoot ? Instrumentation.treeConstructionStarted() : null;
         isPositive = integer > 0;
         positiveInteger = ( isPositive ) ? integer : -integer;
         
@@ -237,12 +416,8 @@ public final class Tree
         //___________________
         if ( positiveInteger == 1 )
         {
-            height = width = 1;
-            factorTrees = new LinkedList<>();
-            diameter = 1.0;
-            circularTreeRadius = PAD;
-            computeOrbitRadius();
-            stepSize = BASE_ANGLE;
+            computeLeafAttributes();
+            Instrumentation.treeConstructed( event, this );
             return;
         }
         
@@ -250,23 +425,70 @@ public final class Tree
         //
         // recursive case
         //___________________ 
-        // Already have positive ersion of this tree?
-//        Tree cachedTree = integerToPositiveIntegerTreeMap.get( positiveInteger );
-//        if ( cachedTree != null )
-//        { 
-//            copy( cachedTree );
-//            isPositive = integer > 0;
-//            // ?? Why can't this be done in copy method?  Check for 1,2,3,4,5.
-//            stepSize = isRoot
-//                ? 0.0
-//                : G * mass() * parent.mass() / Math.pow( orbitRadius, 2.0 ); // radians/time step
-//            return;
-//        }
-                       
-        factorTrees = primeFactors( positiveInteger )
+        final int[] factorRanks = primeFactors( positiveInteger )
                 .stream()
-                .map( primeFactor -> new Tree( rank( primeFactor ), this ) )
+                .mapToInt( Integer::intValue )
+                .toArray();
+        rank( factorRanks, factorRanks );
+        factorTrees = Arrays.stream( factorRanks )
+                .mapToObj( factorRank -> new Tree( factorRank, this ) )
                 .collect( Collectors.toList() );
+        computeAttributes();
+        Instrumentation.treeConstructed( event, this );
+    }
+    
+    /**
+     * Constructs the tree of an integer given in factored form, which need not be an int:
+     * its children are the trees of the ranks of its prime factors, which are 
+     * constructed from its exponents, without computing or factoring the integer.
+     * @param integer the factored form of the integer
+     */
+    Tree( FactoredInteger integer )
+    {
+        isRoot = true;
+        final Instrumentation.TreeConstructionEvent event = Instrumentation.treeConstructionStarted();
+        factoredInteger = integer;
+        isPositive = integer.isPositive();
+        positiveInteger = integer.isInt() ? Math.abs( integer.intValue() ) : 0;
+        if ( integer.size() == 0 )
+        {
+            computeLeafAttributes();
+            Instrumentation.treeConstructed( event, this );
+            return;
+        }
+        final int[] factorRanks = new int[ integer.size() ];
+        for ( int i = 0; i < factorRanks.length; i++ )
+        {
+            factorRanks[ i ] = integer.prime( i );
+        }
+        rank( factorRanks, factorRanks );
+        factorTrees = new ArrayList<>();
+        for ( int i = 0; i < factorRanks.length; i++ )
+        {
+            for ( int j = 0; j < integer.exponent( i ); j++ )
+            {
+                factorTrees.add( new Tree( factorRanks[ i ], this ) );
+            }
+        }
+        computeAttributes();
+        Instrumentation.treeConstructed( event, this );
+    }
+    
+    private void computeLeafAttributes()
+    {
+        height = width = nodeCount = 1;
+        factorTrees = new LinkedList<>();
+        diameter = 1.0;
+        circularTreeRadius = PAD;
+        computeOrbitRadius();
+        stepSize = BASE_ANGLE;
+    }
+    
+    /**
+     * Compute the attributes of a tree that is not a leaf from those of its factorTrees.
+     */
+    private void computeAttributes()
+    {
         height = 1 + factorTrees
                 .stream()
                 .mapToInt( Tree::height )
@@ -276,6 +498,10 @@ public final class Tree
                 .stream()
                 .mapToInt( Tree::width )
                 .sum();
+        nodeCount = 1 + factorTrees
+                .stream()
+                .mapToInt( Tree::nodeCount )
+                .sum();
         //__________________________
         // circularTree attributes
         //__________________________
@@ -299,9 +525,6 @@ public final class Tree
         stepSize = isRoot
                 ? 0.0
                 : G * massProduct / Math.pow( orbitRadius, 2.0 ); // radians/time step
-
-        // cache this tree
-        integerToPositiveIntegerTreeMap.put( positiveInteger, this );
     }
     
     private double rho( Tree tree, double sectorAngle )
@@ -333,8 +556,10 @@ public final class Tree
     {
         isPositive = tree.isPositive;
         positiveInteger = tree.positiveInteger;
+        factoredInteger = tree.factoredInteger;
         height = tree.height;
         width = tree.width;
+        nodeCount = tree.nodeCount;
         factorTrees = tree.factorTrees()
                 .stream()
                 .map( t -> new Tree( t, this ) )
@@ -351,8 +576,33 @@ public final class Tree
     /**
      * The integer that corresponds to the tree. It may be negative.
      * @return the integer corresponding to the tree.
+     * @throws ArithmeticException if the tree was constructed from a factored form that is not an int.
+     */
+    public Integer n() throws ArithmeticException
+    { 
+        if ( positiveInteger == 0 )
+        {
+            throw new ArithmeticException( factoredInteger + " is not an int." );
+        }
+        return ( isPositive ) ? positiveInteger : -positiveInteger; 
+    }
+    
+    /**
+     * @return the integer that corresponds to the tree, or 0 if it is not an int.
      */
-    public Integer n() { return ( isPositive ) ? positiveInteger : -positiveInteger; }
+    int label() { return positiveInteger == 0 ? 0 : n(); }
+    
+    /**
+     * @return true unless the tree was constructed from a factored form that is not an int.
+     */
+    boolean isInt() { return positiveInteger != 0; }
+    
+    boolean isPositive() { return isPositive; }
+    
+    /**
+     * @return the factored form of the integer that corresponds to the tree.
+     */
+    FactoredInteger factored() { return factoredInteger != null ? factoredInteger : FactoredInteger.of( n() ); }
     
     private void computeOrbitRadius()
     {
@@ -375,16 +625,17 @@ public final class Tree
      * @param n the number whose primes factors are sought.
      * @return
      */
-    public List<Integer> primeFactors( int n )
+    static public List<Integer> primeFactors( int n )
     {
         /* add 1 to n before taking sqrt to avoid situation where sqrt( n^2 )
         * returns n - epsilon, (int) of which is n - 1 which could produce
         * an incorrect answer.
         */
+        Instrumentation.factorized();
         return primeFactors( n, 1, (int) Math.sqrt( n + 1 ), new LinkedList<>() );
     }
     
-    private List<Integer> primeFactors( int n, int rank, int limit, List<Integer> primeFactors )
+    static private List<Integer> primeFactors( int n, int rank, int limit, List<Integer> primeFactors )
     {
         if ( n == 1 ) 
         {
@@ -411,208 +662,23 @@ public final class Tree
     
     int getPositiveInteger() { return positiveInteger; }
     
-    String getStringView() { return new String( viewString( "   ") ); }
+    String getStringView() { return TreeTextWriter.view( this ); }
     
     @Override
-    public String toString() { return toString( "  " ).toString(); }
+    public String toString() { return TreeTextWriter.debug( this ); }
     
-    private StringBuilder toString( String pad )
-    {
-         StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder
-                .append( pad ).append( '\n' ).append( pad )
-                .append( "isRoot: " ).append(isRoot ). append( "  " )
-                .append( isPositive ? "" : "-")
-                .append( positiveInteger ).append( "  " )
-                .append( positiveInteger < primes.size() ? prime( positiveInteger ) : "" )
-                .append( " diameter: " + diameter )
-                .append( " orbitRadius: " + orbitRadius )
-//                .append( " orbitAngle: " + orbitAngle )
-                .append( " x: " + x ).append( " y: " + y );
-        if ( ! factorTrees.isEmpty() )
-        {
-            for ( Tree factorTree : factorTrees )
-            {
-                stringBuilder.append(factorTree.viewString( pad + "    ") );
-            }
-        }
-        return stringBuilder;
-    }
-
-    private StringBuilder viewString( String pad )
-    {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder
-                .append( pad ).append( '\n' ).append( pad )
-                .append( isPositive ? "" : "-")
-                .append( positiveInteger ).append( "   " )
-                .append( positiveInteger < primes.size() ? prime( positiveInteger ) : "" );
-        if ( ! factorTrees.isEmpty() )
-        {
-            for ( Tree factorTree : factorTrees )
-            {
-                stringBuilder.append(factorTree.viewString( pad + "    " ) );
-            }
-        }
-        return stringBuilder;
-    }
-    
-    // viewTree parameters, in pixels
+    // tree view geometry, in pixels; TreeRenderer draws the views.
     private static final int ELEMENT  = 8; 
-    private static final int RADIUS   = ELEMENT; 
+            static final int RADIUS   = ELEMENT; 
             static final int PAD      = 3 * ELEMENT; 
-    private static final int DELTA    = 2 * ( PAD + RADIUS );
-    private static final int DIAMETER = 2 * RADIUS;
-    
-    /**
-     * A BufferedImage view of the tree.
-     * @return a BufferedImage view of the tree.
-     */
-    public BufferedImage getTreeView()
-    {
-        BufferedImage bufferedImage = new BufferedImage( imageViewWidth(), imageViewHeight(), BufferedImage.TYPE_INT_ARGB );
-        viewTree( bufferedImage.getGraphics(), PAD, PAD );
-        return bufferedImage;
-    }
-    
-    /**
-     * A BufferedImage view of the circular tree.
-     * @return a BufferedImage view of the tree.
-     */
-    public BufferedImage getCircularTreeView()
-    {
-//        BufferedImage bufferedImage = new BufferedImage( IMAGE_VIEWPORT_SIZE, IMAGE_VIEWPORT_SIZE, BufferedImage.TYPE_INT_ARGB );
-        CIRCULAR_TREE_WIDTH = (int) circularTreeRadius * 4;
-        BufferedImage bufferedImage = new BufferedImage( CIRCULAR_TREE_WIDTH, CIRCULAR_TREE_WIDTH, BufferedImage.TYPE_INT_ARGB );
-        viewCircularTree( bufferedImage.getGraphics(), 0, 0, 0.0 );
-        return bufferedImage;
-    }
-    
-    BufferedImage getPlanetsView()
-    {
-        BufferedImage bufferedImage = new BufferedImage( imageViewWidth(), imageViewHeight(), BufferedImage.TYPE_INT_ARGB );
-        viewPlanets( bufferedImage.getGraphics() );
-        return bufferedImage;
-    }
-
-    /**
-     * Draw the conventional tree view of the tree.
-     * @param g
-     * @param x col of upper left corner of rectangle containing tree
-     * @param y row of upper left corner of rectangle containing tree
-     */
-    void viewTree( Graphics g, int x, int y )
-    {
-        Graphics graphics = g.create();
-        graphics.setColor( Color.BLACK );
-                       
-        // coordinates of center of root
-        int rootX = x + treeRootX();
-        int rootY = y + treeRootY();
-                   
-        // set 1st factor tree's upperleft corner coordinates 
-        int factorTreeX = x;
-        int factorTreeY = y + DELTA;
-        
-        for ( Tree factorTree : factorTrees )
-        {
-            // draw edge from this root to factorTree root
-            graphics.drawLine( rootX, rootY, factorTreeX + factorTree.treeRootX(), factorTreeY + factorTree.treeRootY() );
-            
-            // draw factorTree
-            factorTree.viewTree( graphics, factorTreeX, factorTreeY );
-            
-            // set next factorTree's upperleft corner's x coordinate; y is unchanged
-            factorTreeX += DELTA * factorTree.width; 
-        }
-        
-        // draw this root
-        drawDisk( graphics, rootX, rootY );
-    }
+            static final int DELTA    = 2 * ( PAD + RADIUS );
+            static final int DIAMETER = 2 * RADIUS;
     
     /**
-     * Draw the circular tree view.
-     * @param g
-     * @param x col of upper left corner of rectangle containing tree
-     * @param y row of upper left corner of rectangle containing tree
+     * The width (and height) in pixels of the circular tree view.
+     * @return width in pixels of square enclosing image of circular tree
      */
-    void viewCircularTree( Graphics g, int rootX, int rootY, double parentStartAngle )
-    {
-        Graphics graphics = g.create();
-        graphics.setColor( Color.BLACK );
-        
-        // base case
-        if ( positiveInteger == 1 )
-        {
-            drawNode( graphics, rootX, rootY ); // draw this root
-            return;
-        }
-        
-        // recursive case
-        final double nSectors = ( isRoot ? 0 : 1 ) + factorTrees.size();
-        final double sectorAngle = 2.0 * Math.PI / nSectors;
-        double startAngle = isRoot ? 0.0 : parentStartAngle + Math.PI + sectorAngle;
-        for ( Tree factorTree : factorTrees )
-        {
-            // set factorTree root coordinates
-            int factorTreeRootX = rootX + (int) ( circularTreeRadius * Math.cos( startAngle ) );
-            int factorTreeRootY = rootY + (int) ( circularTreeRadius * Math.sin( startAngle ) );
-            
-            // draw edge from this root to factorTree root
-            drawLine( graphics, rootX, rootY, factorTreeRootX, factorTreeRootY );
-            
-            // draw factor tree
-            factorTree.viewCircularTree(graphics, factorTreeRootX, factorTreeRootY, startAngle );
-            
-            // draw factor tree root
-            factorTree.drawNode( graphics, factorTreeRootX, factorTreeRootY );
-            
-            // increment sectorStartAngle for next factorTree
-            startAngle += sectorAngle; 
-        }
-        drawNode( graphics, rootX, rootY ); // draw this root
-    }
-    
-    private void drawNode( Graphics graphics, int x, int y )
-    {        
-        // (xi, yi) is upper left corner of circumscribing square
-        int xi = transformX( x - RADIUS );
-        int yi = transformY( y + RADIUS );
-        if ( ! isRoot )
-        {
-            graphics.fillOval( xi, yi, DIAMETER, DIAMETER );
-        }
-        else
-        {
-            graphics.setColor( Color.WHITE );
-            graphics.fillOval( xi, yi, DIAMETER, DIAMETER );
-            graphics.setColor( Color.BLACK );
-            graphics.drawOval( xi, yi, DIAMETER, DIAMETER );
-        }
-        if ( LABEL_NODES )
-        {
-            graphics.drawString("" + n(), xi - 5, yi - 5);
-        }
-    }
-    
-    private void drawLine( Graphics graphics, int x1, int y1, int x2, int y2 )
-    {        
-        graphics.drawLine( transformX( x1 ), transformY( y1 ), transformX( x2 ), transformY( y2 ) );
-    }
-//    private int translate( int x ) { return x + IMAGE_VIEWPORT_SIZE / 2; }
-    private int translate( int x ) { return x + CIRCULAR_TREE_WIDTH / 2; }
-    private int transformX( int x ) { return translate( x ); }
-    private int transformY( int y ) { return translate( - y ); }
-            
-    /**
-     *
-     * @param graphics of image on which tree is rendered
-     */
-    void viewPlanets( Graphics graphics )
-    {                      
-        move();
-        draw( graphics );
-    }
+    int circularTreeViewWidth() { return (int) circularTreeRadius * 4; }
     
     /**
      * The width in pixels of the tree view.
@@ -626,21 +692,6 @@ public final class Tree
      */
     public int imageViewHeight() { return ( height() + 1 ) * DELTA; }
     
-    private void drawDisk( Graphics graphics, int x, int y )
-    {
-        if ( ! isRoot )
-        {
-            graphics.fillOval( x - RADIUS, y - RADIUS, DIAMETER, DIAMETER );
-        }
-        else
-        {
-            graphics.setColor( Color.WHITE );
-            graphics.fillOval( x - RADIUS, y - RADIUS, DIAMETER, DIAMETER );
-            graphics.setColor( Color.BLACK );
-            graphics.drawOval( x - RADIUS, y - RADIUS, DIAMETER, DIAMETER );
-        }
-    }
-        
     int treeRootX() { return width * DELTA / 2 - RADIUS; }
     
     int treeRootY() { return PAD + RADIUS; }
@@ -671,34 +722,27 @@ public final class Tree
         factorTrees.forEach( satellite -> satellite.move() );
     }
     
-    void draw( Graphics graphics )
-     {
-         // draw this
-         if ( SHOW_ORBIT ) 
-         {
-            double parentX = isRoot ? 0 : parent.x;
-            double parentY = isRoot ? 0 : parent.y;
-            graphics.setColor( Color.RED );
-            graphics.drawOval( (int) ( OFFESET + SCALE * ( parentX - orbitRadius ) ),
-                               (int) ( OFFESET + SCALE * ( parentY - orbitRadius ) ),
-                               (int) ( SCALE * 2.0 * orbitRadius ),
-                               (int) ( SCALE * 2.0 * orbitRadius )
-                             );
-         }
-         graphics.setColor( color );
-         graphics.fillOval( (int) ( OFFESET + SCALE * ( x - diameter / 2.0 ) ), 
-                            (int) ( OFFESET + SCALE * ( y - diameter / 2.0 ) ), 
-                            (int) ( SCALE * diameter ), 
-                            (int) ( SCALE * diameter ) 
-                          );
-         
-        // draw my satellites
-        factorTrees.forEach( satellite -> satellite.draw( graphics ) );
-     }
-    
     int width() { return width; }
+    
+    int nodeCount() { return nodeCount; }
  
-    double mass() { return positiveInteger; }
+    double mass() { return positiveInteger == 0 ? Integer.MAX_VALUE : positiveInteger; } // masses saturate at the largest int
     
     double orbitRadius() { return orbitRadius; }
+    
+    double diameter() { return diameter; }
+    
+    double stepSize() { return stepSize; }
+    
+    double orbitAngle() { return orbitAngle; }
+    
+    double x() { return x; }
+    
+    double y() { return y; }
+    
+    boolean isRoot() { return isRoot; }
+    
+    Tree parent() { return parent; }
+    
+    double circularTreeRadius() { return circularTreeRadius; }
 }
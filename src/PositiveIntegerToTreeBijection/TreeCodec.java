@@ -0,0 +1,471 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Text encodings of trees, and their inverse: the integer that corresponds to an encoded tree.
+ * <ul>
+ * <li> JSON: {"n":12,"children":[...]}, where n is the integer of the node's subtree; 
+ *      a root whose integer is not an int has its factored form as n, e.g., "n":"2^4096*3^17".</li>
+ * <li> Parentheses: each node is "(", its children, ")"; e.g., 1 is "()", 2 is "(())".
+ *      The root of a negative integer's tree is preceded by "-".</li>
+ * <li> Succinct: the parentheses as bits, "(" = 1 and ")" = 0, in hexadecimal, 
+ *      preceded by the node count and ":"; e.g., 2 is "2:c".</li>
+ * </ul>
+ * The integer of a tree is the product, over its children, of prime( integer of child ); 
+ * a leaf's is 1. An integer, or its factored form, also may be encoded without building 
+ * its tree, by factoring: e.g., by BulkConverter.
+ * @author Peter Cappello
+ */
+final class TreeCodec 
+{
+    /** Deeper trees correspond to integers that are not ints. */
+    static private final int MAX_HEIGHT = 32;
+    static private final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    private TreeCodec() {}
+    
+    static String toJson( Tree tree ) 
+    { 
+        StringBuilder json = new StringBuilder( 24 * tree.nodeCount() );
+        try
+        {
+            writeJson( tree, json );
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a StringBuilder does not throw it
+        }
+        return json.toString();
+    }
+    
+    /**
+     * Write the JSON encoding of a tree as it is traversed, e.g., to a Writer.
+     * @param tree to be encoded
+     * @param json to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeJson( Tree tree, Appendable json ) throws IOException
+    {
+        json.append( "{\"n\":" );
+        if ( tree.isInt() )
+        {
+            json.append( String.valueOf( tree.n() ) );
+        }
+        else
+        {
+            json.append( '"' ).append( tree.factored().toString() ).append( '"' ); // its factored form
+        }
+        json.append( ",\"children\":[" );
+        boolean first = true;
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            if ( ! first )
+            {
+                json.append( ',' );
+            }
+            first = false;
+            writeJson( factorTree, json );
+        }
+        json.append( "]}" );
+    }
+    
+    static String toParentheses( Tree tree ) 
+    { 
+        StringBuilder parentheses = new StringBuilder( 2 * tree.nodeCount() + 1 );
+        try
+        {
+            writeParentheses( tree, parentheses );
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a StringBuilder does not throw it
+        }
+        return parentheses.toString(); 
+    }
+    
+    /**
+     * Write the parentheses encoding of a tree as it is traversed, e.g., to a Writer.
+     * @param tree to be encoded
+     * @param parentheses to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeParentheses( Tree tree, Appendable parentheses ) throws IOException
+    {
+        if ( ! tree.isPositive() )
+        {
+            parentheses.append( '-' );
+        }
+        appendParentheses( tree, parentheses );
+    }
+    
+    static private void appendParentheses( Tree tree, Appendable parentheses ) throws IOException
+    {
+        parentheses.append( '(' );
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            appendParentheses( factorTree, parentheses );
+        }
+        parentheses.append( ')' );
+    }
+    
+    static String toSuccinct( Tree tree )
+    {
+        final String parentheses = toParentheses( tree );
+        StringBuilder succinct = new StringBuilder( parentheses.length() / 4 + 12 );
+        try
+        {
+            writeSuccinct( parentheses, succinct );
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a StringBuilder does not throw it
+        }
+        return succinct.toString();
+    }
+    
+    /**
+     * Write the succinct encoding of a tree, given its parentheses encoding.
+     * @param parentheses the tree's parentheses encoding
+     * @param succinct to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeSuccinct( CharSequence parentheses, Appendable succinct ) throws IOException
+    {
+        final int start = parentheses.charAt( 0 ) == '-' ? 1 : 0;
+        final int bitCount = parentheses.length() - start;
+        succinct.append( start == 1 ? "-" : "" ).append( String.valueOf( bitCount / 2 ) ).append( ':' );
+        for ( int i = start; i < parentheses.length(); i += 4 )
+        {
+            int digit = 0;
+            for ( int bit = 0; bit < 4; bit++ )
+            {
+                final int index = i + bit;
+                digit = ( digit << 1 ) | ( index < parentheses.length() && parentheses.charAt( index ) == '(' ? 1 : 0 );
+            }
+            succinct.append( HEX_DIGITS[ digit ] );
+        }
+    }
+    
+    //___________________________________________________________________
+    // encoders of integers; they factor, rather than build a Tree, since only its shape is needed.
+    //___________________________________________________________________
+    /**
+     * Write the parentheses encoding of n's tree.
+     * @param n a nonzero int whose absolute value is an int
+     * @param parentheses to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeParentheses( int n, Appendable parentheses ) throws IOException
+    {
+        if ( n < 0 )
+        {
+            parentheses.append( '-' );
+        }
+        appendParentheses( Math.abs( n ), parentheses );
+    }
+    
+    static private void appendParentheses( int n, Appendable parentheses ) throws IOException
+    {
+        parentheses.append( '(' );
+        if ( n > 1 )
+        {
+            for ( int primeFactor : Tree.primeFactors( n ) )
+            {
+                appendParentheses( Tree.rank( primeFactor ), parentheses );
+            }
+        }
+        parentheses.append( ')' );
+    }
+    
+    /**
+     * Write the JSON encoding of n's tree.
+     * @param n a nonzero int whose absolute value is an int
+     * @param json to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeJson( int n, Appendable json ) throws IOException
+    {
+        json.append( "{\"n\":" ).append( String.valueOf( n ) ).append( ",\"children\":[" );
+        final int positiveN = Math.abs( n );
+        if ( positiveN > 1 )
+        {
+            boolean first = true;
+            for ( int primeFactor : Tree.primeFactors( positiveN ) )
+            {
+                if ( ! first )
+                {
+                    json.append( ',' );
+                }
+                first = false;
+                writeJson( Tree.rank( primeFactor ), json );
+            }
+        }
+        json.append( "]}" );
+    }
+    
+    /**
+     * Write the parentheses encoding of the tree of an integer in factored form; 
+     * the root's children are encoded from its exponents.
+     * @param n the integer
+     * @param parentheses to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeParentheses( FactoredInteger n, Appendable parentheses ) throws IOException
+    {
+        if ( ! n.isPositive() )
+        {
+            parentheses.append( '-' );
+        }
+        parentheses.append( '(' );
+        for ( int i = 0; i < n.size(); i++ )
+        {
+            final int rank = Tree.rank( n.prime( i ) );
+            for ( int j = 0; j < n.exponent( i ); j++ )
+            {
+                appendParentheses( rank, parentheses );
+            }
+        }
+        parentheses.append( ')' );
+    }
+    
+    /**
+     * Write the JSON encoding of the tree of an integer in factored form; 
+     * the root's children are encoded from its exponents.
+     * @param n the integer
+     * @param json to which the encoding is appended
+     * @throws IOException if the Appendable throws it
+     */
+    static void writeJson( FactoredInteger n, Appendable json ) throws IOException
+    {
+        json.append( "{\"n\":" );
+        if ( n.isInt() )
+        {
+            json.append( String.valueOf( n.intValue() ) );
+        }
+        else
+        {
+            json.append( '"' ).append( n.toString() ).append( '"' ); // its factored form
+        }
+        json.append( ",\"children\":[" );
+        boolean first = true;
+        for ( int i = 0; i < n.size(); i++ )
+        {
+            final int rank = Tree.rank( n.prime( i ) );
+            for ( int j = 0; j < n.exponent( i ); j++ )
+            {
+                if ( ! first )
+                {
+                    json.append( ',' );
+                }
+                first = false;
+                writeJson( rank, json );
+            }
+        }
+        json.append( "]}" );
+    }
+    
+    /**
+     * The integer that corresponds to a tree's shape, computed from its structure alone:
+     * the integers with which its nodes are labeled are not used.
+     * @param tree whose integer is computed
+     * @return the integer of the tree
+     * @throws IllegalArgumentException if its integer is not an int.
+     */
+    static int integer( Tree tree ) throws IllegalArgumentException
+    {
+        final int n = positiveInteger( tree );
+        return tree.isPositive() ? n : -n;
+    }
+    
+    static private int positiveInteger( Tree tree )
+    {
+        int n = 1;
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            final int rank = positiveInteger( factorTree );
+            if ( rank > Tree.MAX_PRIME_RANK )
+            {
+                throw new IllegalArgumentException( "The tree's integer is too large: prime( " + rank + " ) is not an int." );
+            }
+            try
+            {
+                n = Math.multiplyExact( n, Tree.prime( rank ) );
+            }
+            catch ( ArithmeticException exception )
+            {
+                throw new IllegalArgumentException( "The tree's integer is too large to be an int." );
+            }
+        }
+        return n;
+    }
+    
+    /**
+     * The canonical parentheses encoding of a tree: each node's children are 
+     * encoded canonically and then sorted, so isomorphic trees, which differ 
+     * only in the order of their children, have the same encoding.
+     * @param tree to be encoded
+     * @return its canonical encoding
+     */
+    static String toCanonicalParentheses( Tree tree )
+    {
+        return ( tree.isPositive() ? "" : "-" ) + canonical( tree );
+    }
+    
+    static private String canonical( Tree tree )
+    {
+        final List<Tree> factorTrees = tree.factorTrees();
+        if ( factorTrees.isEmpty() )
+        {
+            return "()";
+        }
+        String[] children = new String[ factorTrees.size() ];
+        int i = 0;
+        for ( Tree factorTree : factorTrees )
+        {
+            children[ i++ ] = canonical( factorTree );
+        }
+        Arrays.sort( children );
+        StringBuilder canonical = new StringBuilder( "(" );
+        for ( String child : children )
+        {
+            canonical.append( child );
+        }
+        return canonical.append( ')' ).toString();
+    }
+    
+    /**
+     * The integer whose tree is encoded by a parentheses string.
+     * @param parentheses the encoded tree
+     * @return the integer whose tree is encoded
+     * @throws IllegalArgumentException if the string is not a well-formed tree, 
+     * or its integer is not an int.
+     */
+    static int fromParentheses( String parentheses ) throws IllegalArgumentException
+    {
+        final boolean isNegative = parentheses.startsWith( "-" );
+        final Parser parser = new Parser( parentheses, isNegative ? 1 : 0 );
+        final int n = parser.node( 1 );
+        if ( parser.index != parentheses.length() )
+        {
+            throw new IllegalArgumentException( "Unexpected character at " + parser.index + " of " + parentheses );
+        }
+        return isNegative ? -n : n;
+    }
+    
+    /**
+     * The integer whose tree is encoded by a succinct string.
+     * @param succinct the encoded tree
+     * @return the integer whose tree is encoded
+     * @throws IllegalArgumentException if the string is not a well-formed tree, 
+     * or its integer is not an int.
+     */
+    static int fromSuccinct( String succinct ) throws IllegalArgumentException
+    {
+        final boolean isNegative = succinct.startsWith( "-" );
+        final int colon = succinct.indexOf( ':' );
+        if ( colon < 0 )
+        {
+            throw new IllegalArgumentException( "Missing node count: " + succinct );
+        }
+        final int nodeCount = Integer.parseInt( succinct.substring( isNegative ? 1 : 0, colon ) );
+        final String hex = succinct.substring( colon + 1 );
+        if ( nodeCount < 1 || (long) hex.length() * 4 < 2L * nodeCount )
+        {
+            throw new IllegalArgumentException( "Node count " + nodeCount + " does not match " + hex.length() + " hexadecimal digits." );
+        }
+        StringBuilder parentheses = new StringBuilder( 2 * nodeCount + 1 );
+        if ( isNegative )
+        {
+            parentheses.append( '-' );
+        }
+        for ( int bit = 0; bit < 2 * nodeCount; bit++ )
+        {
+            final int digit = Character.digit( hex.charAt( bit / 4 ), 16 );
+            if ( digit < 0 )
+            {
+                throw new IllegalArgumentException( "Not a hexadecimal digit: " + hex.charAt( bit / 4 ) );
+            }
+            parentheses.append( ( digit & ( 8 >> ( bit % 4 ) ) ) != 0 ? '(' : ')' );
+        }
+        return fromParentheses( parentheses.toString() );
+    }
+    
+    /**
+     * A recursive descent parser of the parentheses encoding.
+     */
+    static private final class Parser
+    {
+        private final String parentheses;
+        private int index;
+        
+        Parser( String parentheses, int index )
+        {
+            this.parentheses = parentheses;
+            this.index = index;
+        }
+        
+        int node( int depth )
+        {
+            if ( depth > MAX_HEIGHT )
+            {
+                throw new IllegalArgumentException( "The tree is too high for its integer to be an int." );
+            }
+            expect( '(' );
+            int n = 1;
+            while ( index < parentheses.length() && parentheses.charAt( index ) == '(' )
+            {
+                final int rank = node( depth + 1 );
+                if ( rank > Tree.MAX_PRIME_RANK )
+                {
+                    throw new IllegalArgumentException( "The tree's integer is too large: prime( " + rank + " ) is not an int." );
+                }
+                try
+                {
+                    n = Math.multiplyExact( n, Tree.prime( rank ) );
+                }
+                catch ( ArithmeticException exception )
+                {
+                    throw new IllegalArgumentException( "The tree's integer is too large to be an int." );
+                }
+            }
+            expect( ')' );
+            return n;
+        }
+        
+        private void expect( char expected )
+        {
+            if ( index >= parentheses.length() || parentheses.charAt( index ) != expected )
+            {
+                throw new IllegalArgumentException( "Expected '" + expected + "' at " + index + " of " + parentheses );
+            }
+            index++;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The trees of 1, 2, ..., N, stored in a data file and an offset index, 
+ * which are memory-mapped for random access by n.
+ * <p>
+ * The data file holds the record of each n, in order. A record is the tree's nodes
+ * in preorder; a node is its integer and its number of children, each an unsigned 
+ * LEB128 varint. The index file is a header (MAGIC, N), followed by N + 1 longs: 
+ * the offset of record n in the data file is entry n - 1; entry N is the data file's length.
+ * </p><p>
+ * Looking up n reads its index entry and then its record, directly from the mapped files; 
+ * nothing is copied to the heap. Since the mappings are of the page cache, 
+ * processes that open the same dataset share its memory.
+ * Files larger than 2 GB are mapped in overlapping segments.
+ * </p>
+ * @author Peter Cappello
+ */
+final class TreeDataset 
+{
+    static private final long MAGIC = 0x5452454544415441L; // "TREEDATA"
+    static private final int HEADER_SIZE = 2 * Long.BYTES;
+    static private final int SEGMENT_SIZE = 1 << 30;
+    static private final int MAX_RECORD_SIZE = 1 << 16; // segments overlap by this much, so that no record straddles 2
+    
+    private final int size;
+    private final MappedByteBuffer[] index;
+    private final MappedByteBuffer[] data;
+    
+    /**
+     * A node of a tree, as visited in preorder.
+     */
+    @FunctionalInterface
+    interface Visitor
+    {
+        /**
+         * @param value the integer of the node's subtree
+         * @param childCount its number of children
+         * @param depth its depth: the root's is 0
+         */
+        void node( int value, int childCount, int depth );
+    }
+    
+    /**
+     * Build the dataset of the trees of 1, 2, ..., size.
+     * Prime factors and ranks come from a FactorSieve, which needs 4 * size bytes of heap.
+     * @param size N, the largest integer in the dataset
+     * @param dataPath of the data file
+     * @param indexPath of the index file
+     * @throws IOException if the files cannot be written
+     */
+    static void build( int size, Path dataPath, Path indexPath ) throws IOException
+    {
+        final FactorSieve sieve = new FactorSieve( size );
+        final int[] stack = new int[ 256 ];
+        final int[] primeFactors = new int[ 32 ];
+        try ( CountingOutputStream data = new CountingOutputStream( new BufferedOutputStream( Files.newOutputStream( dataPath ), 1 << 16 ) );
+              DataOutputStream index = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( indexPath ), 1 << 16 ) ) )
+        {
+            index.writeLong( MAGIC );
+            index.writeLong( size );
+            for ( int n = 1; n <= size; n++ )
+            {
+                final long offset = data.count;
+                index.writeLong( offset );
+                // preorder, using an explicit stack of the integers of unvisited subtrees
+                int top = 0;
+                stack[ top++ ] = n;
+                while ( top > 0 )
+                {
+                    final int value = stack[ --top ];
+                    int childCount = 0;
+                    for ( int m = value; m > 1; m /= sieve.smallestPrimeFactor( m ) )
+                    {
+                        primeFactors[ childCount++ ] = sieve.smallestPrimeFactor( m );
+                    }
+                    writeVarint( data, value );
+                    writeVarint( data, childCount );
+                    for ( int child = childCount - 1; child >= 0; child-- ) // so the smallest factor is visited 1st
+                    {
+                        stack[ top++ ] = sieve.rank( primeFactors[ child ] );
+                    }
+                }
+                if ( data.count - offset > MAX_RECORD_SIZE )
+                {
+                    throw new IllegalStateException( "The record of " + n + " exceeds " + MAX_RECORD_SIZE + " bytes." );
+                }
+            }
+            index.writeLong( data.count );
+        }
+    }
+    
+    static private void writeVarint( OutputStream out, int value ) throws IOException
+    {
+        while ( ( value & ~0x7F ) != 0 )
+        {
+            out.write( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        out.write( value );
+    }
+    
+    /**
+     * Open a dataset that was built by build.
+     * @param dataPath of the data file
+     * @param indexPath of the index file
+     * @throws IOException if the files cannot be mapped, or the index is not a dataset index
+     */
+    TreeDataset( Path dataPath, Path indexPath ) throws IOException
+    {
+        index = map( indexPath );
+        if ( index[ 0 ].getLong( 0 ) != MAGIC )
+        {
+            throw new IOException( indexPath + " is not a tree dataset index." );
+        }
+        size = (int) index[ 0 ].getLong( Long.BYTES );
+        data = map( dataPath );
+    }
+    
+    static private MappedByteBuffer[] map( Path path ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) )
+        {
+            final long length = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[ (int) Math.max( 1, ( length + SEGMENT_SIZE - 1 ) / SEGMENT_SIZE ) ];
+            for ( int i = 0; i < segments.length; i++ )
+            {
+                final long start = (long) i * SEGMENT_SIZE;
+                segments[ i ] = channel.map( FileChannel.MapMode.READ_ONLY, start, Math.min( length - start, SEGMENT_SIZE + MAX_RECORD_SIZE ) );
+            }
+            return segments; // the mappings remain valid after the channel is closed.
+        }
+    }
+    
+    /**
+     * @return N, the largest integer in the dataset
+     */
+    int size() { return size; }
+    
+    /**
+     * Visit, in preorder, the nodes of the tree of n.
+     * @param n in [1, size]
+     * @param visitor of the nodes
+     * @throws IllegalArgumentException if n is not in the dataset
+     */
+    void visit( int n, Visitor visitor ) throws IllegalArgumentException
+    {
+        final long offset = offset( n );
+        final MappedByteBuffer segment = data[ (int) ( offset / SEGMENT_SIZE ) ];
+        final int[] position = { (int) ( offset % SEGMENT_SIZE ) };
+        // remaining[ depth ] is the number of unvisited children of the node at depth - 1.
+        final int[] remaining = new int[ 64 ];
+        int depth = 0;
+        remaining[ 0 ] = 1;
+        while ( depth >= 0 )
+        {
+            if ( remaining[ depth ] == 0 )
+            {
+                depth--;
+                continue;
+            }
+            remaining[ depth ]--;
+            final int value = readVarint( segment, position );
+            final int childCount = readVarint( segment, position );
+            visitor.node( value, childCount, depth );
+            remaining[ ++depth ] = childCount;
+        }
+    }
+    
+    /**
+     * The tree of n, encoded as parentheses (see TreeCodec).
+     * @param n in [1, size]
+     * @return the encoded tree
+     * @throws IllegalArgumentException if n is not in the dataset
+     */
+    String parentheses( int n ) throws IllegalArgumentException
+    {
+        final StringBuilder parentheses = new StringBuilder();
+        final int[] lastDepth = { -1 };
+        visit( n, ( value, childCount, depth ) -> 
+        {
+            for ( ; lastDepth[ 0 ] >= depth; lastDepth[ 0 ]-- )
+            {
+                parentheses.append( ')' );
+            }
+            parentheses.append( '(' );
+            lastDepth[ 0 ] = depth;
+        });
+        for ( ; lastDepth[ 0 ] >= 0; lastDepth[ 0 ]-- )
+        {
+            parentheses.append( ')' );
+        }
+        return parentheses.toString();
+    }
+    
+    /**
+     * The number of nodes in the tree of n.
+     * @param n in [1, size]
+     * @return its node count
+     */
+    int nodeCount( int n )
+    {
+        final int[] nodeCount = { 0 };
+        visit( n, ( value, childCount, depth ) -> nodeCount[ 0 ]++ );
+        return nodeCount[ 0 ];
+    }
+    
+    private long offset( int n )
+    {
+        if ( n < 1 || n > size )
+        {
+            throw new IllegalArgumentException( n + " is not in [1, " + size + "]." );
+        }
+        final long position = HEADER_SIZE + (long) ( n - 1 ) * Long.BYTES;
+        return index[ (int) ( position / SEGMENT_SIZE ) ].getLong( (int) ( position % SEGMENT_SIZE ) );
+    }
+    
+    static private int readVarint( MappedByteBuffer segment, int[] position )
+    {
+        int value = 0;
+        for ( int shift = 0; ; shift += 7 )
+        {
+            final byte b = segment.get( position[ 0 ]++ );
+            value |= ( b & 0x7F ) << shift;
+            if ( b >= 0 )
+            {
+                return value;
+            }
+        }
+    }
+    
+    /**
+     * Build, or query, a dataset.
+     * <pre>
+     * Usage: TreeDataset build N path     - writes path.dat and path.idx
+     *        TreeDataset get path n ...   - prints the tree of each n, encoded as parentheses
+     * </pre>
+     * @param args the command and its arguments
+     * @throws IOException if the files cannot be written or read
+     */
+    public static void main( String[] args ) throws IOException
+    {
+        if ( args.length >= 3 && args[ 0 ].equals( "build" ) )
+        {
+            final long startTime = System.nanoTime();
+            final int size = Integer.parseInt( args[ 1 ] );
+            build( size, Paths.get( args[ 2 ] + ".dat" ), Paths.get( args[ 2 ] + ".idx" ) );
+            Logger.getLogger( TreeDataset.class.getCanonicalName() )
+                  .log( Level.INFO, "Built the dataset of [1, {0}] in {1} ms; data: {2} bytes.", 
+                        new Object[]{ size, ( System.nanoTime() - startTime ) / 1000000, Files.size( Paths.get( args[ 2 ] + ".dat" ) ) } );
+        }
+        else if ( args.length >= 2 && args[ 0 ].equals( "get" ) )
+        {
+            final TreeDataset dataset = new TreeDataset( Paths.get( args[ 1 ] + ".dat" ), Paths.get( args[ 1 ] + ".idx" ) );
+            for ( int i = 2; i < args.length; i++ )
+            {
+                System.out.println( dataset.parentheses( Integer.parseInt( args[ i ] ) ) );
+            }
+        }
+        else
+        {
+            System.err.println( "Usage: TreeDataset build N path | TreeDataset get path n ..." );
+        }
+    }
+    
+    /**
+     * An OutputStream that counts the bytes written through it.
+     */
+    static private final class CountingOutputStream extends FilterOutputStream
+    {
+        long count;
+        
+        CountingOutputStream( OutputStream out ) { super( out ); }
+        
+        @Override
+        public void write( int b ) throws IOException 
+        { 
+            out.write( b ); 
+            count++;
+        }
+    }
+}
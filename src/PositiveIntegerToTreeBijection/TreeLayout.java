@@ -0,0 +1,277 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.Color;
+
+/**
+ * The circular tree view's layout: node positions, in image coordinates, 
+ * stored in preorder, together with each subtree's extent. 
+ * It is computed once per tree, and drawn in whole or in part: 
+ * a partial drawing culls subtrees that do not intersect a viewport, and 
+ * collapses subtrees that are too small to resolve into a single glyph.
+ * @author Peter Cappello
+ */
+final class TreeLayout 
+{
+    // node parameters, in image coordinates
+    static final int RADIUS = Tree.RADIUS;
+    static final int DIAMETER = 2 * RADIUS;
+    
+    private final int size;
+    private final int width;            // of the square image
+    private final int[] x, y;           // node centers
+    private final int[] parent;         // root's parent is itself
+    private final int[] subtreeEnd;     // index following the node's last descendant
+    private final double[] extent;      // radius about node of disk enclosing its subtree
+    private final int[] value;          // integer that corresponds to node's subtree
+    
+    private int nodeCount; // during layout, the number of nodes laid out
+    private NodeIndex nodeIndex; // built on 1st use
+    
+    /**
+     * Lay out the circular tree view of tree.
+     * @param tree to be laid out
+     */
+    TreeLayout( Tree tree )
+    {
+        size = tree.nodeCount();
+        width = tree.circularTreeViewWidth();
+        x          = new int[ size ];
+        y          = new int[ size ];
+        parent     = new int[ size ];
+        subtreeEnd = new int[ size ];
+        extent     = new double[ size ];
+        value      = new int[ size ];
+        layOut( tree, 0, 0, 0.0, 0 );
+        assert nodeCount == size;
+        
+        // children follow their parents, so a reverse scan visits children 1st.
+        for ( int node = size - 1; node >= 0; node-- )
+        {
+            extent[ node ] = Math.max( extent[ node ], RADIUS );
+            if ( node > 0 )
+            {
+                final int p = parent[ node ];
+                extent[ p ] = Math.max( extent[ p ], Math.hypot( x[ node ] - x[ p ], y[ node ] - y[ p ] ) + extent[ node ] );
+            }
+        }
+    }
+    
+    /**
+     * Lay out a subtree: record its nodes in preorder.
+     * @param tree the subtree
+     * @param rootX x coordinate of the subtree's root, relative to the tree's root, y axis up
+     * @param rootY y coordinate of the subtree's root, relative to the tree's root, y axis up
+     * @param parentStartAngle angle of the sector in which the subtree is laid out
+     * @param parentNode index of the subtree's parent
+     */
+    private void layOut( Tree tree, int rootX, int rootY, double parentStartAngle, int parentNode )
+    {
+        final boolean isRoot = tree.isRoot();
+        final int node = addNode( rootX, rootY, isRoot ? 0 : parentNode, isRoot ? tree.label() : tree.getPositiveInteger() );
+        final double nSectors = ( isRoot ? 0 : 1 ) + tree.factorTrees().size();
+        final double sectorAngle = 2.0 * Math.PI / nSectors;
+        double startAngle = isRoot ? 0.0 : parentStartAngle + Math.PI + sectorAngle;
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            // set factorTree root coordinates
+            int factorTreeRootX = rootX + (int) ( tree.circularTreeRadius() * Math.cos( startAngle ) );
+            int factorTreeRootY = rootY + (int) ( tree.circularTreeRadius() * Math.sin( startAngle ) );
+            
+            layOut( factorTree, factorTreeRootX, factorTreeRootY, startAngle, node );
+            
+            // increment sectorStartAngle for next factorTree
+            startAngle += sectorAngle; 
+        }
+        endSubtree( node );
+    }
+    
+    /**
+     * Record a node; invoked by layOut in preorder.
+     * @param rootX x coordinate of node, relative to the root, y axis up
+     * @param rootY y coordinate of node, relative to the root, y axis up
+     * @param parentNode index of node's parent
+     * @param nodeValue integer that corresponds to node's subtree
+     * @return the index of the node
+     */
+    private int addNode( int rootX, int rootY, int parentNode, int nodeValue )
+    {
+        final int node = nodeCount++;
+        x[ node ] = rootX + width / 2;
+        y[ node ] = width / 2 - rootY;
+        parent[ node ] = parentNode;
+        value[ node ] = nodeValue;
+        return node;
+    }
+    
+    /**
+     * Record that the subtree rooted at node has been laid out.
+     * @param node the subtree's root
+     */
+    private void endSubtree( int node ) { subtreeEnd[ node ] = nodeCount; }
+    
+    int size() { return size; }
+    
+    int width() { return width; }
+    
+    int x( int node ) { return x[ node ]; }
+    
+    int y( int node ) { return y[ node ]; }
+    
+    int value( int node ) { return value[ node ]; }
+    
+    int subtreeEnd( int node ) { return subtreeEnd[ node ]; }
+    
+    double extent( int node ) { return extent[ node ]; }
+    
+    int parent( int node ) { return parent[ node ]; }
+    
+    /**
+     * The number of nodes in the subtree rooted at node.
+     * @param node the subtree's root
+     * @return the number of nodes in the subtree
+     */
+    int subtreeSize( int node ) { return subtreeEnd[ node ] - node; }
+    
+    /**
+     * The spatial index of this layout's nodes, built on 1st use.
+     * @return the spatial index of this layout's nodes
+     */
+    synchronized NodeIndex nodeIndex()
+    {
+        if ( nodeIndex == null )
+        {
+            nodeIndex = new NodeIndex( this );
+        }
+        return nodeIndex;
+    }
+    
+    /**
+     * Draw the entire layout.
+     * @param surface on which it is drawn
+     */
+    void draw( DrawingSurface surface ) { draw( surface, 0, 0, width, width, Double.POSITIVE_INFINITY, 0.0 ); }
+    
+    /**
+     * Draw the part of the layout that intersects a viewport. 
+     * Subtrees that do not intersect the viewport are skipped without visiting 
+     * their nodes. A subtree whose extent, in pixels, is less than lodThreshold 
+     * is drawn as a single gray disk.
+     * @param surface on which the layout is drawn, in image coordinates
+     * @param minX left edge of viewport, in image coordinates
+     * @param minY top edge of viewport, in image coordinates
+     * @param maxX right edge of viewport, in image coordinates
+     * @param maxY bottom edge of viewport, in image coordinates
+     * @param scale pixels per image coordinate unit
+     * @param lodThreshold extent in pixels below which a subtree is collapsed
+     */
+    void draw( DrawingSurface surface, double minX, double minY, double maxX, double maxY, double scale, double lodThreshold )
+    {
+        if ( isCulled( 0, minX, minY, maxX, maxY ) )
+        {
+            return;
+        }
+        if ( isCollapsed( 0, scale, lodThreshold ) )
+        {
+            drawGlyph( surface, 0 );
+            return;
+        }
+        
+        // edges 1st, so that nodes are drawn over them.
+        // A node is visited only if its parent's subtree is neither culled nor collapsed.
+        surface.setColor( Color.BLACK );
+        for ( int node = 1; node < size; node++ )
+        {
+            final int p = parent[ node ];
+            if ( Math.min( x[ p ], x[ node ] ) <= maxX && Math.max( x[ p ], x[ node ] ) >= minX 
+              && Math.min( y[ p ], y[ node ] ) <= maxY && Math.max( y[ p ], y[ node ] ) >= minY )
+            {
+                surface.drawLine( x[ p ], y[ p ], x[ node ], y[ node ] );
+            }
+            if ( isCulled( node, minX, minY, maxX, maxY ) || isCollapsed( node, scale, lodThreshold ) )
+            {
+                node = subtreeEnd[ node ] - 1; // skip node's subtree
+            }
+        }
+        for ( int node = 1; node < size; node++ )
+        {
+            if ( isCulled( node, minX, minY, maxX, maxY ) )
+            {
+                node = subtreeEnd[ node ] - 1;
+            }
+            else if ( isCollapsed( node, scale, lodThreshold ) )
+            {
+                drawGlyph( surface, node );
+                node = subtreeEnd[ node ] - 1;
+            }
+            else
+            {
+                drawNode( surface, node );
+            }
+        }
+        drawNode( surface, 0 ); // the root is drawn last, over its neighborhood.
+    }
+    
+    private boolean isCulled( int node, double minX, double minY, double maxX, double maxY )
+    {
+        return x[ node ] + extent[ node ] < minX || x[ node ] - extent[ node ] > maxX 
+            || y[ node ] + extent[ node ] < minY || y[ node ] - extent[ node ] > maxY;
+    }
+    
+    private boolean isCollapsed( int node, double scale, double lodThreshold )
+    {
+        return subtreeEnd[ node ] > node + 1 && extent[ node ] * scale < lodThreshold;
+    }
+    
+    private void drawGlyph( DrawingSurface surface, int node )
+    {
+        final int r = (int) extent[ node ];
+        surface.setColor( Color.GRAY );
+        surface.fillOval( x[ node ] - r, y[ node ] - r, 2 * r, 2 * r );
+        surface.setColor( Color.BLACK );
+    }
+    
+    private void drawNode( DrawingSurface surface, int node )
+    {        
+        // (xi, yi) is upper left corner of circumscribing square
+        final int xi = x[ node ] - RADIUS;
+        final int yi = y[ node ] - RADIUS;
+        if ( node != 0 )
+        {
+            surface.fillOval( xi, yi, DIAMETER, DIAMETER );
+        }
+        else
+        {
+            surface.setColor( Color.WHITE );
+            surface.fillOval( xi, yi, DIAMETER, DIAMETER );
+            surface.setColor( Color.BLACK );
+            surface.drawOval( xi, yi, DIAMETER, DIAMETER );
+        }
+        if ( Tree.LABEL_NODES )
+        {
+            surface.drawString( "" + value[ node ], xi - 5, yi - 5 );
+        }
+    }
+}
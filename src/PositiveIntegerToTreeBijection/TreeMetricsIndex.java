@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.Random;
+
+/**
+ * The height, width, and node count of the tree of each integer in [1, size], 
+ * computed without building any tree, and the integers grouped by complexity, 
+ * so that an integer of a given complexity can be sampled in O(1) time.
+ * 
+ * With p the smallest prime factor of n > 1, and m = n / p, the children of n's tree 
+ * are those of m's tree plus the tree of rank( p ). Since m and rank( p ) are 
+ * less than n, a FactorSieve yields every metric in one pass.
+ * 
+ * The complexity of a tree is its node count + height + width.
+ * @author Peter Cappello
+ */
+final class TreeMetricsIndex 
+{
+    private final int size;
+    private final byte[] height;
+    private final short[] width;
+    private final short[] nodeCount;
+    
+    /* The integers, sorted by complexity. bucketStart[ c ] is the index of the
+     * first integer of complexity c in byComplexity; bucketStart[ c + 1 ] is 1 past its last.
+     */
+    private final int[] byComplexity;
+    private final int[] bucketStart;
+    
+    /**
+     * Index the integers in [1, size].
+     * @param size the largest integer indexed.
+     */
+    TreeMetricsIndex( int size )
+    {
+        final FactorSieve sieve = new FactorSieve( size );
+        this.size = size;
+        height = new byte[ size + 1 ];
+        width = new short[ size + 1 ];
+        nodeCount = new short[ size + 1 ];
+        height[ 1 ] = 1;
+        width[ 1 ] = 1;
+        nodeCount[ 1 ] = 1;
+        for ( int n = 2; n <= size; n++ )
+        {
+            final int p = sieve.smallestPrimeFactor( n );
+            final int m = n / p;
+            final int child = sieve.rank( p );
+            height[ n ] = (byte) Math.max( height[ m ], 1 + height[ child ] );
+            width[ n ] = (short) ( ( m == 1 ? 0 : width[ m ] ) + width[ child ] );
+            nodeCount[ n ] = (short) ( nodeCount[ m ] + nodeCount[ child ] );
+        }
+        
+        //_____________________________________________________________
+        // counting sort by complexity
+        //_____________________________________________________________
+        int maxComplexity = 0;
+        for ( int n = 1; n <= size; n++ )
+        {
+            maxComplexity = Math.max( maxComplexity, complexity( n ) );
+        }
+        bucketStart = new int[ maxComplexity + 2 ];
+        for ( int n = 1; n <= size; n++ )
+        {
+            bucketStart[ complexity( n ) + 1 ]++;
+        }
+        for ( int complexity = 1; complexity < bucketStart.length; complexity++ )
+        {
+            bucketStart[ complexity ] += bucketStart[ complexity - 1 ];
+        }
+        byComplexity = new int[ size ];
+        final int[] next = bucketStart.clone();
+        for ( int n = 1; n <= size; n++ )
+        {
+            byComplexity[ next[ complexity( n ) ]++ ] = n;
+        }
+    }
+    
+    /**
+     * The metrics of 1 integer, which need not be indexed: the recurrence above, 
+     * applied to each of n's prime factors in turn.
+     * @param n a positive int
+     * @return { height, width, nodeCount } of n's tree
+     */
+    static int[] metrics( int n )
+    {
+        int[] metrics = { 1, 0, 1 };
+        if ( n == 1 )
+        {
+            metrics[ 1 ] = 1;
+            return metrics;
+        }
+        for ( int primeFactor : Tree.primeFactors( n ) )
+        {
+            final int[] factorMetrics = metrics( Tree.rank( primeFactor ) );
+            metrics[ 0 ] = Math.max( metrics[ 0 ], 1 + factorMetrics[ 0 ] );
+            metrics[ 1 ] += factorMetrics[ 1 ];
+            metrics[ 2 ] += factorMetrics[ 2 ];
+        }
+        return metrics;
+    }
+    
+    /**
+     * The metrics of an integer in factored form: each prime factor's child 
+     * counts as often as its exponent.
+     * @param n the integer
+     * @return { height, width, nodeCount } of n's tree
+     * @throws ArithmeticException if its width or node count is not a long.
+     */
+    static long[] metrics( FactoredInteger n ) throws ArithmeticException
+    {
+        long[] metrics = { 1, 0, 1 };
+        if ( n.size() == 0 )
+        {
+            metrics[ 1 ] = 1;
+            return metrics;
+        }
+        for ( int i = 0; i < n.size(); i++ )
+        {
+            final int[] factorMetrics = metrics( Tree.rank( n.prime( i ) ) );
+            metrics[ 0 ] = Math.max( metrics[ 0 ], 1 + factorMetrics[ 0 ] );
+            metrics[ 1 ] = Math.addExact( metrics[ 1 ], Math.multiplyExact( (long) n.exponent( i ), factorMetrics[ 1 ] ) );
+            metrics[ 2 ] = Math.addExact( metrics[ 2 ], Math.multiplyExact( (long) n.exponent( i ), factorMetrics[ 2 ] ) );
+        }
+        return metrics;
+    }
+    
+    int size() { return size; }
+    
+    int height( int n ) { return height[ n ]; }
+    
+    int width( int n ) { return width[ n ]; }
+    
+    int nodeCount( int n ) { return nodeCount[ n ]; }
+    
+    int complexity( int n ) { return nodeCount[ n ] + height[ n ] + width[ n ]; }
+    
+    int maxComplexity() { return bucketStart.length - 2; }
+    
+    /**
+     * The number of indexed integers whose complexity is in [minComplexity, maxComplexity].
+     * @param minComplexity least complexity
+     * @param maxComplexity greatest complexity
+     * @return the number of indexed integers whose complexity is in [minComplexity, maxComplexity].
+     */
+    int count( int minComplexity, int maxComplexity )
+    {
+        return bucketEnd( maxComplexity ) - bucketStart( minComplexity );
+    }
+    
+    /**
+     * The complexity below which the given fraction of the indexed integers lie.
+     * @param quantile in [0, 1]
+     * @return the complexity of the integer at the quantile, in complexity order.
+     */
+    int complexityAt( double quantile )
+    {
+        final int index = Math.min( size - 1, (int) ( quantile * size ) );
+        return complexity( byComplexity[ index ] );
+    }
+    
+    /**
+     * A uniformly random integer among those whose complexity is in [minComplexity, maxComplexity].
+     * @param random the source of randomness
+     * @param minComplexity least complexity
+     * @param maxComplexity greatest complexity
+     * @return an integer whose complexity is in [minComplexity, maxComplexity].
+     * @throws IllegalArgumentException if no indexed integer has such complexity.
+     */
+    int sample( Random random, int minComplexity, int maxComplexity ) throws IllegalArgumentException
+    {
+        final int start = bucketStart( minComplexity );
+        final int count = bucketEnd( maxComplexity ) - start;
+        if ( count <= 0 )
+        {
+            throw new IllegalArgumentException( "No integer in [1, " + size + "] has complexity in [" 
+                    + minComplexity + ", " + maxComplexity + "]." );
+        }
+        return byComplexity[ start + random.nextInt( count ) ];
+    }
+    
+    private int bucketStart( int complexity ) { return bucketStart[ Math.max( 0, Math.min( complexity, bucketStart.length - 1 ) ) ]; }
+    
+    private int bucketEnd( int complexity ) { return bucketStart[ Math.max( 0, Math.min( complexity + 1, bucketStart.length - 1 ) ) ]; }
+}
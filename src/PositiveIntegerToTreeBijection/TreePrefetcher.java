@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Speculatively renders the trees of the integers near the one being viewed, 
+ * so that stepping to the next or previous integer displays at once.
+ * <p>
+ * Rendered trees are held in a small cache of bounded capacity, evicted in 
+ * least recently used order. The prefetch depth (the number of integers 
+ * rendered ahead in the direction of travel) adapts to the ratio of the mean 
+ * render time to the mean time between steps: if rendering takes k steps' 
+ * time, rendering k integers ahead keeps the prefetcher in front of the viewer.
+ * @author Peter Cappello
+ */
+final class TreePrefetcher 
+{
+    static private final int MIN_DEPTH = 1;
+    static private final int MAX_DEPTH = 8;
+    static private final int CACHE_CAPACITY = 2 * MAX_DEPTH + 2;
+    static private final double SMOOTHING = 0.25; // weight of newest sample in moving averages
+    
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor( runnable -> 
+    {
+        Thread thread = new Thread( runnable, "Tree prefetcher" );
+        thread.setDaemon( true );
+        thread.setPriority( Thread.MIN_PRIORITY );
+        return thread;
+    });
+    
+    // guarded by this
+    private final Map<Integer, Future<RenderedTree>> cache = new LinkedHashMap<Integer, Future<RenderedTree>>( 16, 0.75f, true )
+    {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Integer, Future<RenderedTree>> eldest )
+        {
+            if ( size() > CACHE_CAPACITY )
+            {
+                eldest.getValue().cancel( true );
+                return true;
+            }
+            return false;
+        }
+    };
+    private double meanRenderTime;   // ns
+    private double meanStepInterval; // ns
+    private long lastStepTime;
+    private int depth = MIN_DEPTH;
+    
+    /**
+     * The rendered tree for number, if it is rendered and cached.
+     * @param number whose rendered tree is sought
+     * @return the rendered tree, or null if it is not ready
+     */
+    synchronized RenderedTree ready( int number )
+    {
+        Future<RenderedTree> future = cache.get( number );
+        if ( future == null || ! future.isDone() )
+        {
+            return null;
+        }
+        try
+        {
+            return future.get();
+        }
+        catch ( CancellationException | ExecutionException | InterruptedException exception )
+        {
+            cache.remove( number );
+            return null;
+        }
+    }
+    
+    /**
+     * The rendered tree for number: if it is being prefetched, wait for it;
+     * otherwise, render it on the calling thread.
+     * @param number whose rendered tree is sought
+     * @return the rendered tree for number
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if rendering fails
+     */
+    RenderedTree get( int number ) throws InterruptedException, ExecutionException
+    {
+        FutureTask<RenderedTree> task = null;
+        Future<RenderedTree> future;
+        synchronized ( this )
+        {
+            future = cache.get( number );
+            if ( future == null || future.isCancelled() )
+            {
+                task = newTask( number );
+                cache.put( number, task );
+                future = task;
+            }
+        }
+        if ( task != null )
+        {
+            task.run();
+        }
+        try
+        {
+            return future.get();
+        }
+        catch ( CancellationException | ExecutionException exception )
+        {
+            synchronized ( this )
+            {
+                cache.remove( number, future );
+            }
+            throw exception;
+        }
+    }
+    
+    /**
+     * Note that the viewer stepped to number, and prefetch the integers 
+     * around it, favoring the direction of travel.
+     * @param number the integer being viewed
+     * @param direction +1 if stepping forward; -1 if stepping backward
+     */
+    synchronized void steppedTo( int number, int direction )
+    {
+        long now = System.nanoTime();
+        if ( lastStepTime != 0 )
+        {
+            meanStepInterval = meanStepInterval == 0.0 ? now - lastStepTime : average( meanStepInterval, now - lastStepTime );
+            depth = meanStepInterval == 0.0 
+                    ? MAX_DEPTH
+                    : Math.max( MIN_DEPTH, Math.min( MAX_DEPTH, (int) Math.ceil( meanRenderTime / meanStepInterval ) ) );
+        }
+        lastStepTime = now;
+        
+        // cancel prefetches that have fallen out of the window
+        final int low  = number - ( direction > 0 ? 1 : depth );
+        final int high = number + ( direction > 0 ? depth : 1 );
+        for ( Iterator<Map.Entry<Integer, Future<RenderedTree>>> iterator = cache.entrySet().iterator(); iterator.hasNext(); )
+        {
+            Map.Entry<Integer, Future<RenderedTree>> entry = iterator.next();
+            if ( ! entry.getValue().isDone() && ( entry.getKey() < low || entry.getKey() > high ) )
+            {
+                entry.getValue().cancel( true );
+                iterator.remove();
+            }
+        }
+        for ( int k = 1; k <= depth; k++ )
+        {
+            prefetch( number + k * direction );
+        }
+        prefetch( number - direction );
+    }
+    
+    /**
+     * The number of integers prefetched ahead of the viewer.
+     * @return the prefetch depth
+     */
+    synchronized int depth() { return depth; }
+    
+    /**
+     * The mean time to render a tree.
+     * @return the mean render time in ms
+     */
+    synchronized double meanRenderTime() { return meanRenderTime / 1000000.0; }
+    
+    private void prefetch( int number )
+    {
+        if ( number == 0 || cache.containsKey( number ) )
+        {
+            return; // 0 has no tree
+        }
+        FutureTask<RenderedTree> task = newTask( number );
+        cache.put( number, task );
+        executorService.execute( task );
+    }
+    
+    private FutureTask<RenderedTree> newTask( int number )
+    {
+        return new FutureTask<>( () -> 
+        {
+            RenderedTree renderedTree = RenderedTree.render( number );
+            recordRenderTime( renderedTree.renderTime() );
+            return renderedTree;
+        });
+    }
+    
+    private synchronized void recordRenderTime( long renderTime ) 
+    { 
+        meanRenderTime = meanRenderTime == 0.0 ? renderTime : average( meanRenderTime, renderTime ); 
+    }
+    
+    static private double average( double mean, double sample ) { return ( 1.0 - SMOOTHING ) * mean + SMOOTHING * sample; }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import static PositiveIntegerToTreeBijection.Tree.DELTA;
+import static PositiveIntegerToTreeBijection.Tree.DIAMETER;
+import static PositiveIntegerToTreeBijection.Tree.PAD;
+import static PositiveIntegerToTreeBijection.Tree.RADIUS;
+import static PositiveIntegerToTreeBijection.Tree.SHOW_ORBIT;
+import static PositiveIntegerToTreeBijection.Viewer.IMAGE_VIEWPORT_SIZE;
+
+/**
+ * Draws the views of a Tree: the conventional tree, the circular tree, and the planets.
+ * Tree itself holds only the structure and geometry of the tree, so that it can be used 
+ * without loading AWT; this is the layer that depends on AWT.
+ * @author Peter Cappello
+ */
+final class TreeRenderer 
+{
+    // planets view parameters
+    static final double SCALE = 8;
+    static final double OFFESET = IMAGE_VIEWPORT_SIZE / 2;
+    static final Color BODY_COLOR = Color.BLUE;
+    
+    private TreeRenderer() {}
+    
+    /**
+     * A BufferedImage view of the tree.
+     * @param tree to be viewed
+     * @return a BufferedImage view of the tree.
+     */
+    static BufferedImage getTreeView( Tree tree )
+    {
+        final Instrumentation.RenderEvent event = Instrumentation.renderStarted();
+        BufferedImage bufferedImage = new BufferedImage( tree.imageViewWidth(), tree.imageViewHeight(), BufferedImage.TYPE_INT_ARGB );
+        viewTree( tree, new GraphicsSurface( bufferedImage.getGraphics() ) );
+        Instrumentation.rendered( event, tree.label(), ViewAs.TREE.name() );
+        return bufferedImage;
+    }
+    
+    /**
+     * A BufferedImage view of the circular tree.
+     * @param tree to be viewed
+     * @return a BufferedImage view of the tree.
+     */
+    static BufferedImage getCircularTreeView( Tree tree )
+    {
+        final Instrumentation.RenderEvent event = Instrumentation.renderStarted();
+        final int circularTreeWidth = tree.circularTreeViewWidth();
+        BufferedImage bufferedImage = new BufferedImage( circularTreeWidth, circularTreeWidth, BufferedImage.TYPE_INT_ARGB );
+        viewCircularTree( tree, new GraphicsSurface( bufferedImage.getGraphics() ) );
+        Instrumentation.rendered( event, tree.label(), ViewAs.CIRCULAR_TREE.name() );
+        return bufferedImage;
+    }
+    
+    /**
+     * A BufferedImage view of the planets, after moving them 1 time step.
+     * @param tree to be viewed
+     * @return a BufferedImage view of the planets.
+     */
+    static BufferedImage getPlanetsView( Tree tree )
+    {
+        final Instrumentation.RenderEvent event = Instrumentation.renderStarted();
+        BufferedImage bufferedImage = new BufferedImage( tree.imageViewWidth(), tree.imageViewHeight(), BufferedImage.TYPE_INT_ARGB );
+        viewPlanets( tree, bufferedImage.getGraphics() );
+        Instrumentation.rendered( event, tree.label(), ViewAs.PLANETS.name() );
+        return bufferedImage;
+    }
+    
+    /**
+     * Draw the conventional tree view, its upper left corner padded by PAD.
+     * @param tree to be drawn
+     * @param surface on which the tree is drawn
+     */
+    static void viewTree( Tree tree, DrawingSurface surface ) { viewTree( tree, surface, PAD, PAD ); }
+    
+    /**
+     * Draw the circular tree view, centered in a square of width circularTreeViewWidth().
+     * @param tree to be drawn
+     * @param surface on which the tree is drawn
+     */
+    static void viewCircularTree( Tree tree, DrawingSurface surface ) { new TreeLayout( tree ).draw( surface ); }
+
+    /**
+     * Draw the conventional tree view of the tree.
+     * @param tree to be drawn
+     * @param graphics
+     * @param x col of upper left corner of rectangle containing tree
+     * @param y row of upper left corner of rectangle containing tree
+     */
+    static void viewTree( Tree tree, DrawingSurface graphics, int x, int y )
+    {
+        graphics.setColor( Color.BLACK );
+                       
+        // coordinates of center of root
+        int rootX = x + tree.treeRootX();
+        int rootY = y + tree.treeRootY();
+                   
+        // set 1st factor tree's upperleft corner coordinates 
+        int factorTreeX = x;
+        int factorTreeY = y + DELTA;
+        
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            // draw edge from this root to factorTree root
+            graphics.drawLine( rootX, rootY, factorTreeX + factorTree.treeRootX(), factorTreeY + factorTree.treeRootY() );
+            
+            // draw factorTree
+            viewTree( factorTree, graphics, factorTreeX, factorTreeY );
+            
+            // set next factorTree's upperleft corner's x coordinate; y is unchanged
+            factorTreeX += DELTA * factorTree.width(); 
+        }
+        
+        // draw this root
+        drawDisk( tree, graphics, rootX, rootY );
+    }
+    
+    /**
+     *
+     * @param tree to be drawn
+     * @param graphics of image on which tree is rendered
+     */
+    static void viewPlanets( Tree tree, Graphics graphics )
+    {                      
+        tree.move();
+        drawPlanets( tree, new GraphicsSurface( graphics ) );
+    }
+    
+    static private void drawDisk( Tree tree, DrawingSurface graphics, int x, int y )
+    {
+        if ( ! tree.isRoot() )
+        {
+            graphics.fillOval( x - RADIUS, y - RADIUS, DIAMETER, DIAMETER );
+        }
+        else
+        {
+            graphics.setColor( Color.WHITE );
+            graphics.fillOval( x - RADIUS, y - RADIUS, DIAMETER, DIAMETER );
+            graphics.setColor( Color.BLACK );
+            graphics.drawOval( x - RADIUS, y - RADIUS, DIAMETER, DIAMETER );
+        }
+    }
+    
+    /**
+     * Draw the planets at their current positions, and their orbits if SHOW_ORBIT.
+     * @param tree whose planets are drawn
+     * @param graphics on which they are drawn
+     */
+    static void drawPlanets( Tree tree, DrawingSurface graphics )
+     {
+         // draw this
+         if ( SHOW_ORBIT ) 
+         {
+            double parentX = tree.isRoot() ? 0 : tree.parent().x();
+            double parentY = tree.isRoot() ? 0 : tree.parent().y();
+            graphics.setColor( Color.RED );
+            graphics.drawOval( (int) ( OFFESET + SCALE * ( parentX - tree.orbitRadius() ) ),
+                               (int) ( OFFESET + SCALE * ( parentY - tree.orbitRadius() ) ),
+                               (int) ( SCALE * 2.0 * tree.orbitRadius() ),
+                               (int) ( SCALE * 2.0 * tree.orbitRadius() )
+                             );
+         }
+         graphics.setColor( BODY_COLOR );
+         graphics.fillOval( (int) ( OFFESET + SCALE * ( tree.x() - tree.diameter() / 2.0 ) ), 
+                            (int) ( OFFESET + SCALE * ( tree.y() - tree.diameter() / 2.0 ) ), 
+                            (int) ( SCALE * tree.diameter() ), 
+                            (int) ( SCALE * tree.diameter() ) 
+                          );
+         
+        // draw my satellites
+        tree.factorTrees().forEach( satellite -> drawPlanets( satellite, graphics ) );
+     }
+}
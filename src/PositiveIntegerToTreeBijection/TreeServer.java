@@ -0,0 +1,412 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+
+/**
+ * A local HTTP service for the bijection. It listens on the loopback address only.
+ * <ul>
+ * <li> GET /tree?n=12[&amp;format=json|parentheses|succinct] - the tree of an integer, 
+ *      which may be given in factored form, e.g., n=1000! or n=2^4096*3^17 (see FactoredInteger).
+ *      A factored form is rejected, before its tree is built, if its number of distinct prime factors, 
+ *      the sum of their exponents, or its tree's node count exceeds the limit given by the system property
+ *      treeServer.maxPrimeCount, treeServer.maxExponentSum, or treeServer.maxNodeCount, respectively; 
+ *      each is 2^20 by default.</li>
+ * <li> GET /integer?tree=(()(()))[&amp;format=parentheses|succinct] - the integer of a tree</li>
+ * <li> GET /prime?rank=5 - the prime of a rank, which is at most 105097565: the rank of the largest int prime</li>
+ * <li> GET /rank?prime=11 - the rank of a prime</li>
+ * <li> GET /view?n=12[&amp;format=png|svg][&amp;as=tree|circular_tree|planets] - a rendered view</li>
+ * <li> GET /metrics - per-endpoint latency percentiles, and prime table and render cache statistics</li>
+ * </ul>
+ * Requests are handled on a fixed pool of threads; they share the prime table, 
+ * whose growth is guarded by the Tree class lock, and the shared RenderCache.
+ * @author Peter Cappello
+ */
+public final class TreeServer 
+{
+    static private final int DEFAULT_PORT = 8080;
+    static private final int BACKLOG = 128;
+    static private final int MAX_PRIME_COUNT = Integer.getInteger( "treeServer.maxPrimeCount", 1 << 20 );
+    static private final long MAX_EXPONENT_SUM = Long.getLong( "treeServer.maxExponentSum", 1 << 20 );
+    static private final long MAX_NODE_COUNT = Long.getLong( "treeServer.maxNodeCount", 1 << 20 );
+    
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private final Map<String, LatencyRecorder> latencyRecorders = new LinkedHashMap<>();
+    
+    /**
+     * Serve on a port of the loopback address. 
+     * Usage: TreeServer [port [threads]]; the default is port 8080, 
+     * with 4 threads per available processor.
+     * @param args the port and the number of request threads
+     * @throws IOException if the server cannot bind its port
+     */
+    public static void main( String[] args ) throws IOException
+    {
+        final int port = ( args.length > 0 ) ? Integer.parseInt( args[ 0 ] ) : DEFAULT_PORT;
+        final int nThreads = ( args.length > 1 ) ? Integer.parseInt( args[ 1 ] ) : 4 * Runtime.getRuntime().availableProcessors();
+        Tree.initialize();
+        new TreeServer( port, nThreads ).start();
+        Logger.getLogger( TreeServer.class.getCanonicalName() )
+              .log( Level.INFO, "Serving on http://localhost:{0,number,#}/ with {1} threads.", new Object[]{ port, nThreads } );
+    }
+    
+    TreeServer( int port, int nThreads ) throws IOException
+    {
+        httpServer = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ), BACKLOG );
+        executorService = Executors.newFixedThreadPool( nThreads );
+        httpServer.setExecutor( executorService );
+        context( "/tree",    this::tree );
+        context( "/integer", this::integer );
+        context( "/prime",   parameters -> text( String.valueOf( Tree.prime( rankParameter( parameters, "rank" ) ) ) ) );
+        context( "/rank",    parameters -> text( String.valueOf( Tree.rank( intParameter( parameters, "prime" ) ) ) ) );
+        context( "/view",    this::view );
+        context( "/metrics", parameters -> new Response( "application/json", metrics().getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+    
+    void start() { httpServer.start(); }
+    
+    void stop()
+    {
+        httpServer.stop( 0 );
+        executorService.shutdown();
+    }
+    
+    //___________________________________________________________________
+    // endpoints
+    //___________________________________________________________________
+    private Response tree( Map<String, String> parameters )
+    {
+        final Tree tree = new Tree( factoredParameter( parameters, "n" ) );
+        switch ( parameters.getOrDefault( "format", "json" ) )
+        {
+            case "json":        return new Response( "application/json", TreeCodec.toJson( tree ).getBytes( StandardCharsets.UTF_8 ) );
+            case "parentheses": return text( TreeCodec.toParentheses( tree ) );
+            case "succinct":    return text( TreeCodec.toSuccinct( tree ) );
+            default: throw new IllegalArgumentException( "Unknown format: " + parameters.get( "format" ) );
+        }
+    }
+    
+    private Response integer( Map<String, String> parameters )
+    {
+        final String tree = parameter( parameters, "tree" );
+        switch ( parameters.getOrDefault( "format", "parentheses" ) )
+        {
+            case "parentheses": return text( String.valueOf( TreeCodec.fromParentheses( tree ) ) );
+            case "succinct":    return text( String.valueOf( TreeCodec.fromSuccinct( tree ) ) );
+            default: throw new IllegalArgumentException( "Unknown format: " + parameters.get( "format" ) );
+        }
+    }
+    
+    private Response view( Map<String, String> parameters ) throws IOException
+    {
+        final int n = nonzeroParameter( parameters, "n" );
+        final ViewAs viewAs;
+        try
+        {
+            viewAs = ViewAs.valueOf( parameters.getOrDefault( "as", "tree" ).toUpperCase( Locale.ROOT ) );
+        }
+        catch ( IllegalArgumentException exception )
+        {
+            throw new IllegalArgumentException( "Unknown view: " + parameters.get( "as" ) );
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        switch ( parameters.getOrDefault( "format", "png" ) )
+        {
+            case "png":
+                ImageIO.write( RenderCache.shared().view( n, viewAs ), "png", body );
+                return new Response( "image/png", body.toByteArray() );
+            case "svg":
+                try ( Writer writer = new OutputStreamWriter( body, StandardCharsets.UTF_8 ) )
+                {
+                    VectorExporter.export( new Tree( n ), viewAs, VectorExporter.Format.SVG, writer );
+                }
+                return new Response( "image/svg+xml", body.toByteArray() );
+            default: throw new IllegalArgumentException( "Unknown format: " + parameters.get( "format" ) );
+        }
+    }
+    
+    private String metrics()
+    {
+        StringBuilder json = new StringBuilder( "{\"endpoints\":{" );
+        boolean first = true;
+        for ( Map.Entry<String, LatencyRecorder> entry : latencyRecorders.entrySet() )
+        {
+            json.append( first ? "" : "," ).append( '"' ).append( entry.getKey() ).append( "\":" );
+            entry.getValue().toJson( json );
+            first = false;
+        }
+        RenderCache renderCache = RenderCache.shared();
+        return json.append( "},\"primeCount\":" ).append( Tree.primeCount() )
+                   .append( ",\"renderCache\":{\"memoryHits\":" ).append( renderCache.memoryHits() )
+                   .append( ",\"diskHits\":" ).append( renderCache.diskHits() )
+                   .append( ",\"misses\":" ).append( renderCache.misses() )
+                   .append( "}}" ).toString();
+    }
+    
+    //___________________________________________________________________
+    // request handling
+    //___________________________________________________________________
+    @FunctionalInterface
+    private interface Endpoint
+    {
+        Response respond( Map<String, String> parameters ) throws IOException;
+    }
+    
+    static private final class Response
+    {
+        final String contentType;
+        final byte[] body;
+        
+        Response( String contentType, byte[] body )
+        {
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+    
+    static private Response text( String text ) 
+    { 
+        return new Response( "text/plain; charset=utf-8", text.getBytes( StandardCharsets.UTF_8 ) ); 
+    }
+    
+    private void context( String path, Endpoint endpoint )
+    {
+        final LatencyRecorder latencyRecorder = new LatencyRecorder();
+        latencyRecorders.put( path, latencyRecorder );
+        httpServer.createContext( path, exchange -> 
+        {
+            final long startTime = System.nanoTime();
+            try
+            {
+                handle( exchange, endpoint );
+            }
+            finally
+            {
+                latencyRecorder.record( System.nanoTime() - startTime );
+                exchange.close();
+            }
+        });
+    }
+    
+    static private void handle( HttpExchange exchange, Endpoint endpoint ) throws IOException
+    {
+        int status = 200;
+        Response response;
+        try
+        {
+            if ( ! "GET".equals( exchange.getRequestMethod() ) )
+            {
+                status = 405;
+                response = text( "Only GET is supported." );
+            }
+            else
+            {
+                response = endpoint.respond( parameters( exchange.getRequestURI().getRawQuery() ) );
+            }
+        }
+        catch ( IllegalArgumentException exception ) // includes NumberFormatException
+        {
+            status = 400;
+            response = text( String.valueOf( exception.getMessage() ) );
+        }
+        catch ( RuntimeException | IOException exception )
+        {
+            Logger.getLogger( TreeServer.class.getCanonicalName() )
+                  .log( Level.WARNING, "Request " + exchange.getRequestURI() + " failed.", exception );
+            status = 500;
+            response = text( String.valueOf( exception ) );
+        }
+        exchange.getResponseHeaders().set( "Content-Type", response.contentType );
+        exchange.sendResponseHeaders( status, response.body.length );
+        try ( OutputStream outputStream = exchange.getResponseBody() )
+        {
+            outputStream.write( response.body );
+        }
+    }
+    
+    static private Map<String, String> parameters( String query ) throws UnsupportedEncodingException
+    {
+        Map<String, String> parameters = new HashMap<>();
+        if ( query == null )
+        {
+            return parameters;
+        }
+        for ( String pair : query.split( "&" ) )
+        {
+            final int equals = pair.indexOf( '=' );
+            if ( equals > 0 )
+            {
+                parameters.put( URLDecoder.decode( pair.substring( 0, equals ), "UTF-8" ), 
+                                URLDecoder.decode( pair.substring( equals + 1 ), "UTF-8" ) );
+            }
+        }
+        return parameters;
+    }
+    
+    static private String parameter( Map<String, String> parameters, String name )
+    {
+        final String value = parameters.get( name );
+        if ( value == null )
+        {
+            throw new IllegalArgumentException( "Missing parameter: " + name );
+        }
+        return value;
+    }
+    
+    static private int intParameter( Map<String, String> parameters, String name )
+    {
+        return Integer.parseInt( parameter( parameters, name ).trim() );
+    }
+    
+    static private int positiveParameter( Map<String, String> parameters, String name )
+    {
+        final int value = intParameter( parameters, name );
+        if ( value < 1 )
+        {
+            throw new IllegalArgumentException( name + " must be positive: " + value );
+        }
+        return value;
+    }
+    
+    /**
+     * A prime's rank: it is positive, and the prime of that rank is an int. 
+     * A larger rank is rejected before it reaches the prime table, whose growth it would hold up.
+     */
+    static private int rankParameter( Map<String, String> parameters, String name )
+    {
+        final int value = positiveParameter( parameters, name );
+        if ( value > Tree.MAX_PRIME_RANK )
+        {
+            throw new IllegalArgumentException( name + " must be at most " + Tree.MAX_PRIME_RANK + ", the rank of the largest int prime: " + value );
+        }
+        return value;
+    }
+    
+    static private int nonzeroParameter( Map<String, String> parameters, String name )
+    {
+        final int value = intParameter( parameters, name );
+        if ( value == 0 )
+        {
+            throw new IllegalArgumentException( "0 has no tree." );
+        }
+        return value;
+    }
+    
+    /**
+     * An integer in factored form whose tree is within the limits of the class comment. 
+     * The prime count is checked as it is parsed, the exponent sum then, and the node count 
+     * from its metrics, so that a request for a huge tree does not grow the prime table 
+     * far, or build the tree, before it is rejected.
+     */
+    static private FactoredInteger factoredParameter( Map<String, String> parameters, String name )
+    {
+        try
+        {
+            final FactoredInteger n = FactoredInteger.parse( parameter( parameters, name ), MAX_PRIME_COUNT );
+            long exponentSum = 0;
+            for ( int i = 0; i < n.size(); i++ )
+            {
+                exponentSum += n.exponent( i );
+            }
+            if ( exponentSum > MAX_EXPONENT_SUM )
+            {
+                throw new IllegalArgumentException( name + " is too large: its exponents sum to " + exponentSum + ", more than " + MAX_EXPONENT_SUM );
+            }
+            final long nodeCount = TreeMetricsIndex.metrics( n )[ 2 ];
+            if ( nodeCount > MAX_NODE_COUNT )
+            {
+                throw new IllegalArgumentException( name + " is too large: its tree has " + nodeCount + " nodes, more than " + MAX_NODE_COUNT );
+            }
+            return n;
+        }
+        catch ( ArithmeticException exception )
+        {
+            throw new IllegalArgumentException( name + " is too large: " + exception.getMessage() );
+        }
+    }
+    
+    /**
+     * The latencies of an endpoint's most recent requests, in a ring buffer.
+     */
+    static private final class LatencyRecorder
+    {
+        static private final int CAPACITY = 1 << 12;
+        
+        private final long[] latencies = new long[ CAPACITY ]; // ns
+        private long count;
+        
+        synchronized void record( long latency ) { latencies[ (int) ( count++ % CAPACITY ) ] = latency; }
+        
+        void toJson( StringBuilder json )
+        {
+            final long[] sorted;
+            final long total;
+            synchronized ( this )
+            {
+                total = count;
+                sorted = Arrays.copyOf( latencies, (int) Math.min( count, CAPACITY ) );
+            }
+            Arrays.sort( sorted );
+            json.append( "{\"count\":" ).append( total )
+                .append( ",\"p50Ms\":" ).append( percentile( sorted, 0.50 ) )
+                .append( ",\"p90Ms\":" ).append( percentile( sorted, 0.90 ) )
+                .append( ",\"p99Ms\":" ).append( percentile( sorted, 0.99 ) )
+                .append( ",\"maxMs\":" ).append( percentile( sorted, 1.0 ) )
+                .append( '}' );
+        }
+        
+        static private double percentile( long[] sorted, double fraction )
+        {
+            if ( sorted.length == 0 )
+            {
+                return 0.0;
+            }
+            final int index = Math.min( sorted.length - 1, (int) Math.ceil( fraction * sorted.length ) - 1 );
+            return sorted[ Math.max( 0, index ) ] / 1000000.0;
+        }
+    }
+}
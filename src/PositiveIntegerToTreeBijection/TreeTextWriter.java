@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the text views of a tree to an Appendable, e.g., a Writer or a StringBuilder, 
+ * as it traverses the tree: no text is built per subtree and copied into its parent's. 
+ * Indentation is appended from a single buffer of spaces that is shared by every line.
+ * <ul>
+ * <li> view: each node's integer and, if it is a rank in the prime table, its prime, 
+ *      indented by the node's depth (see Tree.getStringView).</li>
+ * <li> debug: the view, with the root's planet attributes (see Tree.toString).</li>
+ * </ul>
+ * @author Peter Cappello
+ */
+final class TreeTextWriter 
+{
+    static private final String VIEW_PAD = "   ";
+    static private final String DEBUG_PAD = "  ";
+    static private final int INDENT = 4; // spaces per level
+    
+    private final Appendable out;
+    private final StringBuilder spaces = new StringBuilder();
+    
+    /**
+     * @param out to which text is written
+     */
+    TreeTextWriter( Appendable out ) { this.out = out; }
+    
+    /**
+     * @param tree whose view is returned
+     * @return the view of the tree
+     */
+    static String view( Tree tree ) 
+    { 
+        StringBuilder view = new StringBuilder( 16 * tree.nodeCount() );
+        try
+        {
+            new TreeTextWriter( view ).writeView( tree );
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a StringBuilder does not throw it
+        }
+        return view.toString();
+    }
+    
+    /**
+     * @param tree whose debug view is returned
+     * @return the debug view of the tree
+     */
+    static String debug( Tree tree ) 
+    { 
+        StringBuilder debug = new StringBuilder( 16 * tree.nodeCount() + 128 );
+        try
+        {
+            new TreeTextWriter( debug ).writeDebug( tree );
+        }
+        catch ( IOException exception )
+        {
+            throw new UncheckedIOException( exception ); // a StringBuilder does not throw it
+        }
+        return debug.toString();
+    }
+    
+    /**
+     * Write the view of a tree.
+     * @param tree whose view is written
+     * @throws IOException if the Appendable throws it
+     */
+    void writeView( Tree tree ) throws IOException { writeView( tree, VIEW_PAD.length() ); }
+    
+    /**
+     * Write the debug view of a tree.
+     * @param tree whose debug view is written
+     * @throws IOException if the Appendable throws it
+     */
+    void writeDebug( Tree tree ) throws IOException
+    {
+        final int pad = DEBUG_PAD.length();
+        indent( pad ).append( '\n' );
+        indent( pad ).append( "isRoot: " ).append( String.valueOf( tree.isRoot() ) ).append( "  " );
+        appendLabel( tree, "  " )
+           .append( " diameter: " ).append( String.valueOf( tree.diameter() ) )
+           .append( " orbitRadius: " ).append( String.valueOf( tree.orbitRadius() ) )
+           .append( " x: " ).append( String.valueOf( tree.x() ) )
+           .append( " y: " ).append( String.valueOf( tree.y() ) );
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            writeView( factorTree, pad + INDENT );
+        }
+    }
+    
+    /**
+     * Write 1 line of the view, without its line terminator.
+     * @param node whose line is written
+     * @param depth of the node; the root's is 0
+     * @throws IOException if the Appendable throws it
+     */
+    void writeLine( Tree node, int depth ) throws IOException
+    {
+        indent( VIEW_PAD.length() + INDENT * depth );
+        appendLabel( node, VIEW_PAD );
+    }
+    
+    private void writeView( Tree tree, int pad ) throws IOException
+    {
+        indent( pad ).append( '\n' );
+        indent( pad );
+        appendLabel( tree, VIEW_PAD );
+        for ( Tree factorTree : tree.factorTrees() )
+        {
+            writeView( factorTree, pad + INDENT );
+        }
+    }
+    
+    /**
+     * Append the node's integer, the separator, and the prime whose rank is the integer, 
+     * if the prime table holds it.
+     */
+    private Appendable appendLabel( Tree node, String separator ) throws IOException
+    {
+        if ( node.isInt() )
+        {
+            out.append( node.isPositive() ? "" : "-" ).append( String.valueOf( node.getPositiveInteger() ) );
+        }
+        else
+        {
+            out.append( node.factored().toString() );
+        }
+        out.append( separator );
+        final int positiveInteger = node.getPositiveInteger();
+        return 0 < positiveInteger && positiveInteger <= Tree.primeCount() 
+                ? out.append( String.valueOf( Tree.prime( positiveInteger ) ) ) 
+                : out;
+    }
+    
+    private Appendable indent( int width ) throws IOException
+    {
+        while ( spaces.length() < width )
+        {
+            spaces.append( ' ' );
+        }
+        return out.append( spaces, 0, width );
+    }
+    
+    /**
+     * The lines of a tree's view, 1 per node, in preorder. A line is formatted only
+     * when it is requested, so a view can be paged, e.g., by a JList, without formatting all of it.
+     */
+    static final class Lines
+    {
+        private final Tree[] nodes;
+        private final int[] depths;
+        private int maxDepth;
+        private final StringBuilder line = new StringBuilder();
+        private final TreeTextWriter writer = new TreeTextWriter( line );
+        
+        Lines( Tree tree )
+        {
+            nodes = new Tree[ tree.nodeCount() ];
+            depths = new int[ tree.nodeCount() ];
+            index( tree, 0, 0 );
+        }
+        
+        private int index( Tree node, int depth, int index )
+        {
+            nodes[ index ] = node;
+            depths[ index++ ] = depth;
+            maxDepth = Math.max( maxDepth, depth );
+            for ( Tree factorTree : node.factorTrees() )
+            {
+                index = index( factorTree, depth + 1, index );
+            }
+            return index;
+        }
+        
+        int size() { return nodes.length; }
+        
+        /**
+         * @return an upper bound on the length of a line: only the root's integer need not be an int.
+         */
+        int maxLength()
+        {
+            final int maxIntLineLength = VIEW_PAD.length() + INDENT * maxDepth + 2 * 11 + VIEW_PAD.length();
+            return Math.max( line( 0 ).length(), maxIntLineLength );
+        }
+        
+        /**
+         * @param index of the line; the root's is 0.
+         * @return the line, without its line terminator
+         */
+        synchronized String line( int index )
+        {
+            line.setLength( 0 );
+            try
+            {
+                writer.writeLine( nodes[ index ], depths[ index ] );
+            }
+            catch ( IOException exception )
+            {
+                throw new UncheckedIOException( exception ); // a StringBuilder does not throw it
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Exports tree views as vector documents. 
+ * The views are drawn by the same Tree methods that render the raster images; 
+ * each primitive is streamed to the Writer as the tree is walked.
+ * @author Peter Cappello
+ */
+final class VectorExporter 
+{
+    enum Format 
+    { 
+        SVG( ".svg" ), POSTSCRIPT( ".eps" );
+        
+        final String extension;
+        
+        Format( String extension ) { this.extension = extension; }
+        
+        /**
+         * The vector format named by a file's extension.
+         * @param path of the file
+         * @return the vector format, or null if the extension is not a vector format.
+         */
+        static Format of( Path path )
+        {
+            String name = path.getFileName().toString().toLowerCase();
+            if ( name.endsWith( SVG.extension ) )
+            {
+                return SVG;
+            }
+            if ( name.endsWith( POSTSCRIPT.extension ) || name.endsWith( ".ps" ) )
+            {
+                return POSTSCRIPT;
+            }
+            return null;
+        }
+    }
+    
+    private VectorExporter() {}
+    
+    /**
+     * Stream a view of the tree to a Writer. 
+     * The planets view is a snapshot of the bodies' current positions; they are not moved.
+     * @param tree to be viewed
+     * @param viewAs the view to be exported
+     * @param format of the vector document
+     * @param writer to which the document is streamed; it is flushed, not closed.
+     * @throws IOException if the writer fails
+     */
+    static void export( Tree tree, ViewAs viewAs, Format format, Writer writer ) throws IOException
+    {
+        final Instrumentation.RenderEvent event = Instrumentation.renderStarted();
+        final int width  = viewAs == ViewAs.CIRCULAR_TREE ? tree.circularTreeViewWidth() : tree.imageViewWidth();
+        final int height = viewAs == ViewAs.CIRCULAR_TREE ? tree.circularTreeViewWidth() : tree.imageViewHeight();
+        try
+        {
+            if ( format == Format.SVG )
+            {
+                try ( SvgSurface surface = new SvgSurface( writer, width, height ) )
+                {
+                    draw( tree, viewAs, surface );
+                }
+            }
+            else
+            {
+                try ( PostScriptSurface surface = new PostScriptSurface( writer, width, height ) )
+                {
+                    draw( tree, viewAs, surface );
+                }
+            }
+        }
+        catch ( UncheckedIOException uncheckedIOException )
+        {
+            throw uncheckedIOException.getCause();
+        }
+        Instrumentation.rendered( event, tree.label(), viewAs + "." + format );
+    }
+    
+    /**
+     * Export a view of the tree to a file, in the format named by its extension.
+     * @param tree to be viewed
+     * @param viewAs the view to be exported
+     * @param path of the file; its extension must be .svg, .eps or .ps
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the extension is not a vector format
+     */
+    static void export( Tree tree, ViewAs viewAs, Path path ) throws IOException, IllegalArgumentException
+    {
+        Format format = Format.of( path );
+        if ( format == null )
+        {
+            throw new IllegalArgumentException( path + " is not an .svg, .eps or .ps file." );
+        }
+        try ( Writer writer = new BufferedWriter( new OutputStreamWriter( Files.newOutputStream( path ), StandardCharsets.UTF_8 ) ) )
+        {
+            export( tree, viewAs, format, writer );
+        }
+    }
+    
+    static private void draw( Tree tree, ViewAs viewAs, DrawingSurface surface )
+    {
+        switch ( viewAs )
+        {
+            case TREE:          TreeRenderer.viewTree( tree, surface ); break;
+            case CIRCULAR_TREE: TreeRenderer.viewCircularTree( tree, surface ); break;
+            case PLANETS:       TreeRenderer.drawPlanets( tree, surface ); break;
+            default: throw new AssertionError( viewAs );
+        }
+    }
+}
@@ -27,5 +27,5 @@ package PositiveIntegerToTreeBijection;
  *
  * @author Peter Cappello
  */
-public enum ViewAs { TREE, PLANETS }
+public enum ViewAs { TREE, PLANETS, CIRCULAR_TREE }
    
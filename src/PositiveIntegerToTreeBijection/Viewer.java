@@ -30,30 +30,36 @@ import java.awt.Color;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.font.TextAttribute;
 import java.awt.image.BufferedImage;
-import java.awt.image.RenderedImage;
 import java.io.File;
-import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
-import javax.swing.ImageIcon;
+import javax.swing.AbstractListModel;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import static javax.swing.JOptionPane.ERROR_MESSAGE;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import static javax.swing.SwingConstants.RIGHT;
 
 /**
@@ -65,17 +71,25 @@ public class Viewer extends JFrame
 {
     // graphical parameters
     static final int IMAGE_VIEWPORT_SIZE = 800;
+    static final int FRAME_METRICS_PERIOD = 1000; // ms between animation frame reports
+    static final int EXPORTED_ANIMATION_FRAMES = 250;
+    static final int PROGRESS_PERIOD = 100; // ms between progress bar updates
+    static final int STRING_VIEW_ROWS = 30;
+    static final int STRING_VIEW_COLUMNS = 20;
 
     // graphical components
     private final Animation timerBasedAnimation = new Animation();
     private final JScrollPane animationScrollPane = new JScrollPane( timerBasedAnimation );
-    private final ImagePanel imageView = new ImagePanel();
-    private final JScrollPane imageViewScrollPane = new JScrollPane( imageView );
+    private final ImagePanel imageView = new ImagePanel(); // image to be saved
+    private final CircularTreePanel circularTreeView = new CircularTreePanel();
     private final JPanel numberPanel = new JPanel();
         private final JLabel numberLabel = new JLabel("Enter an integer & click the return key ", RIGHT);
         private final JTextField numberTextField = new JTextField( 30 );
+        private final JButton previousButton = new JButton( "Previous" );
+        private final JButton nextButton = new JButton( "Next" );
         private JButton saveButton = new JButton( "Save" );
-    private final JTextArea stringView = new JTextArea( 30, 20 );
+        private final JProgressBar progressBar = new JProgressBar( 0, 100 );
+    private final JList<String> stringView = new JList<>(); // formats only the lines that it displays
     private final JScrollPane stringViewScrollPane = new JScrollPane( stringView );
     private final JPanel extras = new JPanel();
         private final JPanel primeAndRankPanel = new JPanel();
@@ -87,11 +101,19 @@ public class Viewer extends JFrame
             private final JTextField rankOfPrimeTextField = new JTextField( 30 );
         private final JTextArea logView = new JTextArea( "1", 6, 50 );
         private final JScrollPane logViewScrollPane = new JScrollPane( logView );
+        private final JLabel frameMetricsLabel = new JLabel( " " ); // its own line, so the log is not overwritten
 
     // model components
     private int number;
     private Tree tree;
     
+    // background computation: these are accessed only on the event dispatch thread.
+    private SwingWorker<RenderedTree, Void> updateWorker; // renders the most recently entered number
+    private SwingWorker<Integer, Void> queryWorker;       // answers the most recent rank or prime query
+    private int progressTarget;                           // rank sought by queryWorker; 0 if unknown
+    private final Timer progressTimer = new Timer( PROGRESS_PERIOD, unused -> showProgress() );
+    private final TreePrefetcher treePrefetcher = new TreePrefetcher();
+    
     public static void main(String[] args) 
     {
         long startTime = System.nanoTime();
@@ -111,7 +133,7 @@ public class Viewer extends JFrame
         final Container container = getContentPane();
         container.setLayout( new BorderLayout() );
         container.add(numberPanel, BorderLayout.NORTH );
-        container.add(imageViewScrollPane, BorderLayout.CENTER );
+        container.add(circularTreeView, BorderLayout.CENTER );
         container.add(stringViewScrollPane, BorderLayout.EAST );
         
         // Animation does not display w/o these 2 statements.
@@ -121,10 +143,15 @@ public class Viewer extends JFrame
         container.add( animationScrollPane, BorderLayout.WEST );
         container.add(extras, BorderLayout.SOUTH );
 
-        numberPanel.setLayout( new GridLayout( 1, 3 ) );
+        numberPanel.setLayout( new GridLayout( 1, 6 ) );
         numberPanel.add( numberLabel );
         numberPanel.add( numberTextField );
+        numberPanel.add( previousButton );
+        numberPanel.add( nextButton );
         numberPanel.add( saveButton );
+        numberPanel.add( progressBar );
+            progressBar.setStringPainted( true );
+            progressBar.setString( "" );
 
         extras.setLayout( new BorderLayout() );
         extras.add( primeAndRankPanel, BorderLayout.CENTER );
@@ -136,13 +163,18 @@ public class Viewer extends JFrame
             primeAndRankPanel.add( primeTextField );
             primeAndRankPanel.add( rankOfPrimeTextField );
         extras.add( logViewScrollPane, BorderLayout.SOUTH );
+        extras.add( frameMetricsLabel, BorderLayout.NORTH );
 
         Dimension dimension = new Dimension( 3 * IMAGE_VIEWPORT_SIZE + this.getHeight(), 3 * IMAGE_VIEWPORT_SIZE );
         setSize( dimension );
         setPreferredSize( dimension );        
-        stringView.setEditable( false );
+        stringView.setFont( new Font( Font.MONOSPACED, Font.PLAIN, stringView.getFont().getSize() ) );
+        FontMetrics fontMetrics = stringView.getFontMetrics( stringView.getFont() );
+        stringViewScrollPane.setPreferredSize( new Dimension( STRING_VIEW_COLUMNS * fontMetrics.charWidth( 'm' ), 
+                                                              STRING_VIEW_ROWS * fontMetrics.getHeight() ) );
 //        update( 111111111 ); 
-        update( -5 );
+        number = -5;
+        update( number );
         setVisible(true);
 
         //  _______________________________________
@@ -151,6 +183,10 @@ public class Viewer extends JFrame
         // Enter a non-zero integer
         numberTextField.addActionListener(this::numberTextFieldActionPerformed);
         
+        // Step to the previous or next non-zero integer
+        previousButton.addActionListener( unused -> step( -1 ) );
+        nextButton.addActionListener( unused -> step( 1 ) );
+        
         // Enter a non-zero integer
         saveButton.addActionListener(this::saveButtonActionPerformed);
         
@@ -159,16 +195,178 @@ public class Viewer extends JFrame
         
         // Enter a prime
         primeTextField.addActionListener(this::primeTextFieldActionPerformed);
+        
+        // Report the animation's frame timings
+        new Timer( FRAME_METRICS_PERIOD, unused -> frameMetricsLabel.setText( timerBasedAnimation.frameMetrics().report() ) ).start();
     }
 
+    /**
+     * Build and render the tree for number on a background thread, superseding
+     * any update in progress. Only the views of the most recently requested 
+     * number are displayed.
+     * @param number whose tree is displayed
+     */
     private void update( int number )
     {
-        tree = new Tree( number );
-        stringView.setText( tree.getStringView() );
-        imageView.image( tree.getCircularTreeView() );
-//        imageView.image( tree.getTreeView() );
-        imageViewScrollPane.setViewportView( new JLabel( new ImageIcon( imageView.image() ) ) );
-//        timerBasedAnimation.newAnimation( tree );
+        if ( updateWorker != null )
+        {
+            updateWorker.cancel( true );
+            updateWorker = null;
+        }
+        RenderedTree prefetchedTree = treePrefetcher.ready( number );
+        if ( prefetchedTree != null )
+        {
+            display( prefetchedTree );
+            return;
+        }
+        updateWorker = new SwingWorker<RenderedTree, Void>()
+        {
+            @Override
+            protected RenderedTree doInBackground() throws Exception { return treePrefetcher.get( number ); }
+
+            @Override
+            protected void done()
+            {
+                if ( this != updateWorker ) 
+                {
+                    return; // superseded
+                }
+                updateWorker = null;
+                try
+                {
+                    display( get() );
+                }
+                catch ( ExecutionException | InterruptedException exception )
+                {
+                    Logger.getLogger( Viewer.class.getCanonicalName() )
+                          .log( Level.WARNING, "Rendering " + number + " failed.", exception );
+                }
+            }
+        };
+        startProgress();
+        updateWorker.execute();
+    }
+    
+    private void display( RenderedTree renderedTree )
+    {
+        tree = renderedTree.tree();
+        final TreeTextWriter.Lines lines = renderedTree.textView();
+        // a prototype fixes the cells' size, so the list does not format every line to size itself.
+        char[] prototype = new char[ lines.maxLength() ];
+        Arrays.fill( prototype, '0' );
+        stringView.setPrototypeCellValue( new String( prototype ) );
+        stringView.setModel( new AbstractListModel<String>()
+        {
+            @Override
+            public int getSize() { return lines.size(); }
+
+            @Override
+            public String getElementAt( int index ) { return lines.line( index ); }
+        });
+        circularTreeView.treeLayout( renderedTree.circularTreeLayout() );
+        timerBasedAnimation.newAnimation( tree );
+    }
+    
+    /**
+     * Step to the next integer in direction, skipping 0, which has no tree.
+     * The integers beyond it are prefetched.
+     * @param direction +1 for the next integer; -1 for the previous integer
+     */
+    private void step( int direction )
+    {
+        number += direction;
+        if ( number == 0 )
+        {
+            number += direction;
+        }
+        numberTextField.setText( Integer.toString( number ) );
+        update( number );
+        treePrefetcher.steppedTo( number, direction );
+    }
+    
+    /**
+     * Answer a rank or prime query on a background thread, superseding any 
+     * query in progress.
+     * @param query the computation
+     * @param answerTextField displays the answer
+     * @param errorMessage displayed if the query throws an IllegalArgumentException
+     * @param progressTarget the rank to which the prime table grows; 0 if unknown.
+     */
+    private void query( Callable<Integer> query, JTextField answerTextField, String errorMessage, int progressTarget )
+    {
+        if ( queryWorker != null )
+        {
+            queryWorker.cancel( true );
+        }
+        answerTextField.setText( "" );
+        this.progressTarget = progressTarget;
+        queryWorker = new SwingWorker<Integer, Void>()
+        {
+            @Override
+            protected Integer doInBackground() throws Exception { return query.call(); }
+
+            @Override
+            protected void done()
+            {
+                if ( this != queryWorker ) 
+                {
+                    return; // superseded
+                }
+                queryWorker = null;
+                try
+                {
+                    answerTextField.setText( get().toString() );
+                }
+                catch ( ExecutionException exception )
+                {
+                    if ( exception.getCause() instanceof IllegalArgumentException )
+                    {
+                        JOptionPane.showMessageDialog( Viewer.this, errorMessage, "Input error", ERROR_MESSAGE );
+                    }
+                    else
+                    {
+                        Logger.getLogger( Viewer.class.getCanonicalName() )
+                              .log( Level.WARNING, "Query failed.", exception );
+                    }
+                }
+                catch ( InterruptedException ignore ) {}
+            }
+        };
+        startProgress();
+        queryWorker.execute();
+    }
+    
+    //  _________________________
+    //  progress of background computation
+    //  _________________________
+    private void startProgress()
+    {
+        showProgress();
+        progressTimer.start();
+    }
+    
+    private void showProgress()
+    {
+        if ( updateWorker == null && queryWorker == null )
+        {
+            progressTimer.stop();
+            progressBar.setIndeterminate( false );
+            progressBar.setValue( 0 );
+            progressBar.setString( "" );
+            return;
+        }
+        final int primeCount = Tree.primeCount();
+        if ( queryWorker != null && progressTarget > 0 )
+        {
+            progressBar.setIndeterminate( false );
+            progressBar.setValue( (int) ( 100L * Math.min( primeCount, progressTarget ) / progressTarget ) );
+            progressBar.setString( "primes: " + primeCount + " of " + progressTarget );
+        }
+        else
+        {
+            progressBar.setIndeterminate( true );
+            progressBar.setString( "primes: " + primeCount );
+        }
     }
 
     //  _________________________
@@ -191,7 +389,7 @@ public class Viewer extends JFrame
             int rank = getIntFromJTextField( rankTextField );
             if ( rank > 0 )
             {
-                primeOfRankTextField.setText( Integer.toString( prime( rank ) ) );
+                query( () -> prime( rank ), primeOfRankTextField, "The prime with rank " + rank + " is too large to be an int.", rank );
             }
             else
             {
@@ -206,14 +404,7 @@ public class Viewer extends JFrame
         try 
         {
             int prime = getIntFromJTextField( primeTextField );
-            try
-            {
-                rankOfPrimeTextField.setText( Integer.toString( rank( prime ) ) );
-            }
-            catch ( IllegalArgumentException ex ) 
-            { 
-                JOptionPane.showMessageDialog( this, prime + " is not a prime number.", "Input error", ERROR_MESSAGE );
-            }
+            query( () -> rank( prime ), rankOfPrimeTextField, prime + " is not a prime number.", 0 );
         }
         catch ( IllegalArgumentException ex ) { return; }
     }
@@ -234,32 +425,81 @@ public class Viewer extends JFrame
     
     private void saveButtonActionPerformed( ActionEvent actionEvent )
     {
-        BufferedImage bufferedImage = labelImage();
- 
+        if ( tree == null )
+        {
+            return; // the 1st tree is not yet rendered
+        }
         File file = null;
         JFileChooser fileChooser = new JFileChooser( file );
         int returnValue = fileChooser.showDialog( this, "Save");
         if ( returnValue == JFileChooser.APPROVE_OPTION )
         {
-            File imageFile = fileChooser.getSelectedFile();
-            try
+            save( tree, fileChooser.getSelectedFile() );
+        }
+    }
+    
+    /**
+     * Write a view of a tree to a file on a background thread: rendering or reading 
+     * its circular tree view from the RenderCache, or exporting an animated GIF or 
+     * a vector document, may take seconds. The Save button is disabled until the 
+     * file is written; then the labeled circular tree view is displayed.
+     * @param savedTree whose view is saved
+     * @param imageFile the file: its extension selects the format; otherwise, 
+     * the labeled circular tree view is saved as a PNG
+     */
+    private void save( Tree savedTree, File imageFile )
+    {
+        saveButton.setEnabled( false );
+        new SwingWorker<BufferedImage, Void>()
+        {
+            @Override
+            protected BufferedImage doInBackground() throws Exception 
             {
-                ImageIO.write( (RenderedImage)imageView.image(), "png", imageFile );
+                final BufferedImage image = labelImage( RenderCache.shared().view( savedTree.n(), ViewAs.CIRCULAR_TREE ), savedTree );
+                if ( VectorExporter.Format.of( imageFile.toPath() ) != null )
+                {
+                    // .svg, .eps, .ps: stream a vector document of the circular tree view.
+                    VectorExporter.export( savedTree, ViewAs.CIRCULAR_TREE, imageFile.toPath() );
+                }
+                else if ( imageFile.getName().toLowerCase().endsWith( ".gif" ) )
+                {
+                    // .gif: an animated GIF of the planetary view.
+                    new PlanetAnimationExporter( savedTree ).export( EXPORTED_ANIMATION_FRAMES, PlanetAnimationExporter.Format.GIF, imageFile.toPath() );
+                }
+                else
+                {
+                    ImageIO.write( image, "png", imageFile );
+                }
+                return image;
             }
-            catch ( IOException ioException )
+
+            @Override
+            protected void done()
             {
-                ioException.printStackTrace();
+                saveButton.setEnabled( true );
+                try
+                {
+                    imageView.image( get() );
+                    imageView.repaint();
+                }
+                catch ( ExecutionException exception )
+                {
+                    Logger.getLogger( Viewer.class.getCanonicalName() )
+                          .log( Level.WARNING, "Save failed.", exception.getCause() );
+                    JOptionPane.showMessageDialog( Viewer.this, imageFile + " could not be saved: " + exception.getCause().getMessage(), 
+                                                   "Save error", ERROR_MESSAGE );
+                }
+                catch ( InterruptedException ignore ) {}
             }
-        }
-        imageView.image( bufferedImage ); // ?? Unnecessaary
-        imageView.repaint();
+        }.execute();
     }
     
-    private BufferedImage labelImage()
+    static private BufferedImage labelImage( BufferedImage image, Tree tree )
     {
-        // augment image with number of imaged tree.
-        BufferedImage bufferedImage = imageView.image();
+        // augment a copy of the image, which may be shared by the RenderCache, with number of imaged tree.
+        BufferedImage bufferedImage = new BufferedImage( image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB );
         Graphics graphics = bufferedImage.getGraphics();
+        graphics.drawImage( image, 0, 0, null );
         graphics.setColor( Color.BLACK );
         Map<TextAttribute, Object> textAttributes = new HashMap<>();
         textAttributes.put(TextAttribute.FAMILY, graphics.getFont().getFamily());
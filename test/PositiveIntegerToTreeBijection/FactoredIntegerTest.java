@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.math.BigInteger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Parsing factored forms, and their canonical expressions.
+ * @author Peter Cappello
+ */
+public class FactoredIntegerTest
+{
+    @BeforeClass
+    public static void setUpClass() 
+    {
+        Tree.initialize();
+    }
+    
+    @Test
+    public void parse()
+    {
+        assertEquals( 24, FactoredInteger.parse( "2^3*3" ).intValue() );
+        assertEquals( 3628800, FactoredInteger.parse( "10!" ).intValue() );
+        assertEquals( 2310, FactoredInteger.parse( "11#" ).intValue() );
+        assertEquals( 30, FactoredInteger.parse( "5#" ).intValue() );
+        assertEquals( -36, FactoredInteger.parse( "-(2*3)^2" ).intValue() );
+        assertEquals( 1, FactoredInteger.parse( "1" ).intValue() );
+        assertEquals( 12, FactoredInteger.parse( "12" ).intValue() );
+        assertEquals( -6144, FactoredInteger.parse( "-2^10*3!" ).intValue() );
+    }
+    
+    @Test
+    public void canonicalExpression()
+    {
+        assertEquals( "2^3*3", FactoredInteger.parse( "3*2*2*2" ).toString() );
+        assertEquals( "-2^2*3^2", FactoredInteger.parse( "-(2*3)^2" ).toString() );
+        assertEquals( "2^8*3^4*5^2*7", FactoredInteger.parse( "10!" ).toString() );
+        assertEquals( "1", FactoredInteger.parse( "1" ).toString() );
+        assertEquals( "1", FactoredInteger.parse( "2^0" ).toString() );
+        for ( String expression : new String[]{ "2^3*3", "-5^7", "1000!", "(6#)^3*7", "2^4096*3^17" } )
+        {
+            FactoredInteger n = FactoredInteger.parse( expression );
+            assertEquals( n, FactoredInteger.parse( n.toString() ) );
+        }
+    }
+    
+    @Test
+    public void agreesWithInt()
+    {
+        for ( int n = -1000; n <= 1000; n++ )
+        {
+            if ( n != 0 )
+            {
+                FactoredInteger factored = FactoredInteger.of( n );
+                assertEquals( n, factored.intValue() );
+                assertEquals( factored, FactoredInteger.parse( Integer.toString( n ) ) );
+                assertEquals( factored, FactoredInteger.parse( factored.toString() ) );
+            }
+        }
+    }
+    
+    @Test
+    public void notAnInt()
+    {
+        FactoredInteger n = FactoredInteger.parse( "2^31" );
+        assertFalse( n.isInt() );
+        assertEquals( BigInteger.ONE.shiftLeft( 31 ), n.toBigInteger() );
+        try
+        {
+            n.intValue();
+            fail( "2^31 is not an int." );
+        }
+        catch ( ArithmeticException expected ) {}
+        assertTrue( FactoredInteger.parse( "-2^31" ).isInt() );
+    }
+    
+    @Test
+    public void malformedIsRejected()
+    {
+        for ( String expression : new String[]{ "", "0", "2*", "^2", "(2*3", "2**3", "2^", "x", "2 3", "-", "2^-1" } )
+        {
+            try
+            {
+                FactoredInteger.parse( expression );
+                fail( "Accepted " + expression );
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+    }
+    
+    @Test
+    public void primeCountBound()
+    {
+        assertEquals( 4, FactoredInteger.parse( "10!", 4 ).size() );
+        assertEquals( 4, FactoredInteger.parse( "7#*2^5", 4 ).size() );
+        for ( String expression : new String[]{ "11!", "100000000!", "100000000#", "2*3*5*7*11", "(7#)*11" } )
+        {
+            try
+            {
+                FactoredInteger.parse( expression, 4 );
+                fail( "Accepted " + expression );
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+    }
+    
+    @Test( expected = ArithmeticException.class )
+    public void exponentOverflow()
+    {
+        FactoredInteger.parse( "(2^65536)^65536" );
+    }
+}
@@ -5,13 +5,10 @@
  */
 package PositiveIntegerToTreeBijection;
 
-import java.awt.Graphics;
-//import org.junit.After;
-//import org.junit.AfterClass;
-//import org.junit.Before;
-//import org.junit.BeforeClass;
-//import org.junit.Test;
-//import static org.junit.Assert.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
 
 /**
  *
@@ -23,96 +20,76 @@ public class PositiveIntegerToTreeBijectionTest
     public static Tree tree2;
     public static Tree tree3;
     
-//    @BeforeClass
-//    public static void setUpClass() 
-//    {
-//        Tree.setPrimesArray( 100 );
-//        tree1 = new Tree(2);
-//        tree2 = new Tree(3);
-//        tree3 = new Tree(1002);
-//    }
-//    
-//    @AfterClass
-//    public static void tearDownClass()
-//    {
-//        tree1 = null;
-//        tree2 = null;
-//        tree3 = null;
-//    }
-//    
-//    @Before
-//    public void setUp() {
-//    }
-//    
-//    @After
-//    public void tearDown() 
-//    {
-//    }
-//    
-//    /* Since isPrime is a static method, objects of the PositiveIntegerTree 
-//     * class are not required. 
-//     */
-//    @Test
-//    public void testIsPrime()
-//    {
-//        assertTrue(Tree.isPrime(2));
-//        assertTrue(Tree.isPrime(3));
-//        assertTrue(Tree.isPrime(7));
-//        assertTrue(Tree.isPrime(37));
-//
-//        assertFalse(Tree.isPrime(4));
-//        assertFalse(Tree.isPrime(9));
-//        assertFalse(Tree.isPrime(24));
-//        assertFalse(Tree.isPrime(49));
-//    }
-//    
-//    @Test
-//    public void testDimensions() 
-//    {
-//        assertEquals(tree1.getHeight(), 2);
-//        assertEquals(tree1.getWidth(), 1);
-//
-//        assertEquals(tree2.getHeight(), 3);
-//        assertEquals(tree2.getWidth(), 1);
-//
-//        assertEquals(tree3.getHeight(), 5);
-//        assertEquals(tree3.getWidth(), 5);
-//    }
-//    
-//    /**
-//     * Test of getPositiveInteger method, of class PositiveIntegerTree.
-//     */
-//    @Test
-//    public final void testGetPositiveInteger() 
-//    {
-//        System.out.println("getPositiveInteger");
-//        assertEquals( tree1.getPositiveInteger(), 2 );
-//        assertEquals( tree2.getPositiveInteger(), 3 );
-//        assertEquals( tree3.getPositiveInteger(), 1002 );
-//    }
-//
-//    /**
-//     * Test of setPrimesArray method, of class PositiveIntegerTree.
-//     */
-//    @Test
-//    public void testSetPrimesArray() 
-//    {
-//        System.out.println("setPrimesArray");
-//        int expResult = 7;
-//        int result = PositiveIntegerTree.primes[4];
-//        assertEquals( expResult, result );
-//    }
-//
-//    /**
-//     * Test of toString method, of class PositiveIntegerTree.
-//     */
-//    @Test
-//    public void testToString() {
-//        System.out.println("toString");
-//        PositiveIntegerTree instance = new PositiveIntegerTree( 1 );
-//        String expResult = "   \n   Natural number tree: rank: 1 2\n" +
-//                           "   height: 1 width: 1 Its factor trees are:";
-//        String result = instance.toString();
-//        assertEquals( expResult, result );
-//    }
+    @BeforeClass
+    public static void setUpClass() 
+    {
+        Tree.initialize();
+        tree1 = new Tree(2);
+        tree2 = new Tree(3);
+        tree3 = new Tree(1002);
+    }
+    
+    @AfterClass
+    public static void tearDownClass()
+    {
+        tree1 = null;
+        tree2 = null;
+        tree3 = null;
+    }
+    
+    /* A prime has a rank; rank throws IllegalArgumentException for any other integer. 
+     */
+    @Test
+    public void testIsPrime()
+    {
+        assertEquals(1, Tree.rank(2));
+        assertEquals(2, Tree.rank(3));
+        assertEquals(4, Tree.rank(7));
+        assertEquals(12, Tree.rank(37));
+
+        for ( int composite : new int[]{ 4, 9, 24, 49 } )
+        {
+            try
+            {
+                Tree.rank(composite);
+                fail(composite + " is not a prime.");
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+    }
+    
+    @Test
+    public void testDimensions() 
+    {
+        assertEquals(2, tree1.height());
+        assertEquals(1, tree1.width());
+
+        assertEquals(3, tree2.height());
+        assertEquals(1, tree2.width());
+
+        assertEquals(5, tree3.height());
+        assertEquals(5, tree3.width());
+    }
+    
+    /**
+     * Test of n method, of class Tree.
+     */
+    @Test
+    public final void testGetPositiveInteger() 
+    {
+        assertEquals( 2, tree1.n().intValue() );
+        assertEquals( 3, tree2.n().intValue() );
+        assertEquals( 1002, tree3.n().intValue() );
+    }
+
+    /**
+     * Test of setPrimesArray method, of class Tree.
+     */
+    @Test
+    public void testSetPrimesArray() 
+    {
+        int expResult = 7;
+        int result = Tree.prime(4);
+        assertEquals( expResult, result );
+    }
 }
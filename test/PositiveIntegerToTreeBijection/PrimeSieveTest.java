@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The segmented sieve finds the same primes as a plain sieve of Eratosthenes, 
+ * both when it grows its own base primes from 2, as it grows the prime table, 
+ * and in the segments that end at Integer.MAX_VALUE.
+ * Each test is run with the scalar kernel and with the kernel that create() selects, which
+ * is the vector kernel when the tests run with, e.g.,
+ * ant test -Drun.jvmargs="--add-modules jdk.incubator.vector".
+ * @author Peter Cappello
+ */
+public class PrimeSieveTest
+{
+    static private final int LIMIT = 20000000;
+    
+    @Test
+    public void fromScratchScalar() { assertSievesFromScratch( new PrimeSieve() ); }
+    
+    @Test
+    public void fromScratchCreated() { assertSievesFromScratch( PrimeSieve.create() ); }
+    
+    @Test
+    public void lastSegmentsScalar() { assertSievesLastSegments( new PrimeSieve() ); }
+    
+    @Test
+    public void lastSegmentsCreated() { assertSievesLastSegments( PrimeSieve.create() ); }
+    
+    /**
+     * Grow a table, whose only base prime is 2, segment by segment, past LIMIT; 
+     * its primes up to LIMIT are those of the reference sieve.
+     */
+    static private void assertSievesFromScratch( PrimeSieve sieve )
+    {
+        final int[] reference = referencePrimes( LIMIT );
+        final Table table = new Table();
+        table.append( 2 );
+        for ( long sieved = 2; sieved < LIMIT; )
+        {
+            final long previous = sieved;
+            sieved = sieve.sieveSegment( table.largest(), table.primes, table.count, table::append );
+            assertTrue( "No progress after " + previous, sieved > previous );
+            assertTrue( table.largest() <= sieved );
+        }
+        assertArrayEquals( reference, Arrays.copyOfRange( table.primes, 1, 1 + reference.length ) );
+        assertTrue( table.count == reference.length || table.primes[ reference.length + 1 ] > LIMIT );
+    }
+    
+    /**
+     * Sieve from a prime below Integer.MAX_VALUE to it, with the base primes up to its 
+     * square root; the primes are those found by trial division, and sieving after 
+     * Integer.MAX_VALUE, the largest int prime, finds none.
+     */
+    static private void assertSievesLastSegments( PrimeSieve sieve )
+    {
+        final int[] base = referencePrimes( 46349 ); // 46349 is the least prime whose square is not an int
+        final int[] basePrimes = new int[ base.length + 1 ];
+        System.arraycopy( base, 0, basePrimes, 1, base.length );
+        basePrimes[ 0 ] = 1;
+        int after = Integer.MAX_VALUE - 1200000;
+        while ( ! isPrime( after, base ) )
+        {
+            after--;
+        }
+        final Table table = new Table();
+        table.append( after );
+        for ( long sieved = after; sieved < Integer.MAX_VALUE; )
+        {
+            sieved = sieve.sieveSegment( table.largest(), basePrimes, base.length, table::append );
+        }
+        int rank = 2;
+        for ( long n = after + 1L; n <= Integer.MAX_VALUE; n++ )
+        {
+            if ( isPrime( (int) n, base ) )
+            {
+                assertEquals( n, table.primes[ rank++ ] );
+            }
+        }
+        assertEquals( rank - 1, table.count );
+        assertEquals( Integer.MAX_VALUE, table.largest() );
+        
+        assertEquals( Integer.MAX_VALUE, sieve.sieveSegment( Integer.MAX_VALUE, basePrimes, base.length, 
+                prime -> fail( "Found " + prime + " after Integer.MAX_VALUE." ) ) );
+    }
+    
+    /** The primes &le; n, by the sieve of Eratosthenes. */
+    static private int[] referencePrimes( int n )
+    {
+        final boolean[] isComposite = new boolean[ n + 1 ];
+        int count = 0;
+        for ( int i = 2; i <= n; i++ )
+        {
+            if ( ! isComposite[ i ] )
+            {
+                count++;
+                for ( long multiple = (long) i * i; multiple <= n; multiple += i )
+                {
+                    isComposite[ (int) multiple ] = true;
+                }
+            }
+        }
+        final int[] primes = new int[ count ];
+        for ( int i = 2, rank = 0; i <= n; i++ )
+        {
+            if ( ! isComposite[ i ] )
+            {
+                primes[ rank++ ] = i;
+            }
+        }
+        return primes;
+    }
+    
+    /** Whether n is prime, by trial division by primes, which include those &le; its square root. */
+    static private boolean isPrime( int n, int[] primes )
+    {
+        for ( int prime : primes )
+        {
+            if ( (long) prime * prime > n )
+            {
+                return true;
+            }
+            if ( n % prime == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /** A prime table, as in Tree: primes[ rank ], for rank in [1, count]. */
+    static private final class Table
+    {
+        int[] primes = new int[ 1 << 10 ];
+        int count;
+        
+        void append( int prime )
+        {
+            if ( ++count == primes.length )
+            {
+                primes = Arrays.copyOf( primes, 2 * primes.length );
+            }
+            primes[ count ] = prime;
+        }
+        
+        int largest() { return primes[ count ]; }
+    }
+}
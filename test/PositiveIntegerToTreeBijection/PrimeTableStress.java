@@ -0,0 +1,52 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Grows the prime table to all MAX_PRIME_RANK int primes, which takes about 
+ * 800 MB of heap and several seconds, so it is not run by ant test, whose tests 
+ * are named *Test; PrimeSieveTest checks the sieve's last segments instead. Run it with
+ * ant test-single -Djavac.includes=PositiveIntegerToTreeBijection/PrimeTableStress.java
+ *                 -Dtest.includes=PositiveIntegerToTreeBijection/PrimeTableStress.java
+ * @author Peter Cappello
+ */
+public class PrimeTableStress
+{
+    /**
+     * The table grows to, and stops at, the largest int prime.
+     */
+    @Test
+    public void maxPrimeRank()
+    {
+        assertEquals( Integer.MAX_VALUE, Tree.prime( Tree.MAX_PRIME_RANK ) );
+        assertEquals( Tree.MAX_PRIME_RANK, Tree.rank( Integer.MAX_VALUE ) );
+        assertEquals( Tree.MAX_PRIME_RANK, Tree.primeCount() );
+        int[] primes = new int[ 2 ];
+        Tree.prime( new int[]{ 1, Tree.MAX_PRIME_RANK }, primes );
+        assertArrayEquals( new int[]{ 2, Integer.MAX_VALUE }, primes );
+    }
+}
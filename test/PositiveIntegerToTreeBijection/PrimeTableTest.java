@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The batch lookups of the prime table, Tree.prime( int[], int[] ) and 
+ * Tree.rank( int[], int[] ), agree with the scalar lookups: sorted batches are 
+ * merged with the table by galloping search; unsorted batches are sorted first.
+ * @author Peter Cappello
+ */
+public class PrimeTableTest
+{
+    static private final int MAX_RANK = 200000;
+    
+    @BeforeClass
+    public static void setUpClass() 
+    {
+        Tree.initialize();
+    }
+    
+    @Test
+    public void batchPrimeAgreesWithPrime()
+    {
+        int[] ranks = randomRanks( 5000, 1 );
+        int[] primes = new int[ ranks.length ];
+        Tree.prime( ranks, primes );
+        for ( int i = 0; i < ranks.length; i++ )
+        {
+            assertEquals( Tree.prime( ranks[ i ] ), primes[ i ] );
+        }
+        Tree.prime( ranks, ranks ); // in place
+        assertArrayEquals( primes, ranks );
+    }
+    
+    @Test
+    public void sortedBatchRank()
+    {
+        // dense, sparse, and repeated primes exercise the galloping steps
+        int[] ranks = { 1, 2, 3, 4, 5, 5, 5, 100, 101, 1000, 65536, 65537, MAX_RANK - 1, MAX_RANK, MAX_RANK };
+        assertRanks( ranks );
+        int[] everyRank = new int[ 10000 ];
+        for ( int i = 0; i < everyRank.length; i++ )
+        {
+            everyRank[ i ] = i + 1;
+        }
+        assertRanks( everyRank );
+    }
+    
+    @Test
+    public void unsortedBatchRank()
+    {
+        assertRanks( new int[]{ MAX_RANK, 1, 1000, 2, 1000, 3, MAX_RANK / 2, 1 } );
+        assertRanks( randomRanks( 5000, 2 ) );
+    }
+    
+    @Test
+    public void emptyBatch()
+    {
+        Tree.prime( new int[ 0 ], new int[ 0 ] );
+        Tree.rank( new int[ 0 ], new int[ 0 ] );
+    }
+    
+    @Test
+    public void batchRankRejectsNonPrime()
+    {
+        final int[][] batches = 
+        {
+            { 2, 3, 4, 5 },           // sorted
+            { 5, 3, 2, 9 },           // unsorted
+            { 2, 3 * Tree.prime( MAX_RANK ) }, // beyond the table as first grown
+            { 1 },
+            { 0 },
+            { -7, 2, 3 },             // sorted
+            { 5, -7 }                 // unsorted
+        };
+        for ( int[] batch : batches )
+        {
+            try
+            {
+                Tree.rank( batch, new int[ batch.length ] );
+                fail( "Ranked " + Arrays.toString( batch ) );
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+    }
+    
+    /**
+     * Ranks &lt; 1, and beyond MAX_PRIME_RANK, are rejected before the table grows. 
+     * That the table grows to MAX_PRIME_RANK is checked by PrimeTableStress.
+     */
+    @Test
+    public void rankOutOfRangeIsRejected()
+    {
+        for ( int rank : new int[]{ Tree.MAX_PRIME_RANK + 1, Integer.MAX_VALUE, 0, -1, Integer.MIN_VALUE } )
+        {
+            try
+            {
+                Tree.prime( rank );
+                fail( "The prime with rank " + rank + " is not an int." );
+            }
+            catch ( IllegalArgumentException expected ) {}
+            try
+            {
+                Tree.prime( new int[]{ 1, rank }, new int[ 2 ] );
+                fail( "The prime with rank " + rank + " is not an int." );
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+    }
+    
+    /**
+     * Batch rank agrees with rank, in place and not, and inverts batch prime.
+     */
+    static private void assertRanks( int[] ranks )
+    {
+        int[] primes = new int[ ranks.length ];
+        Tree.prime( ranks, primes );
+        int[] batchRanks = new int[ primes.length ];
+        Tree.rank( primes, batchRanks );
+        assertArrayEquals( ranks, batchRanks );
+        for ( int i = 0; i < primes.length; i++ )
+        {
+            assertEquals( Tree.rank( primes[ i ] ), batchRanks[ i ] );
+        }
+        Tree.rank( primes, primes ); // in place
+        assertArrayEquals( ranks, primes );
+    }
+    
+    static private int[] randomRanks( int count, long seed )
+    {
+        Random random = new Random( seed );
+        int[] ranks = new int[ count ];
+        for ( int i = 0; i < count; i++ )
+        {
+            ranks[ i ] = 1 + random.nextInt( MAX_RANK );
+        }
+        return ranks;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package PositiveIntegerToTreeBijection;
+
+import java.io.IOException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through TreeCodec's encodings: an integer's tree, encoded, decodes 
+ * to the integer; an integer encoded by factoring matches the encoding of its tree.
+ * @author Peter Cappello
+ */
+public class TreeCodecTest
+{
+    static private final int[] INTEGERS = { 1, 2, 3, 4, 12, 30, 97, 1000, 1024, 65536, 720720, 1234567, 2147483646, -1, -2, -360, -2147483646 };
+    
+    @BeforeClass
+    public static void setUpClass() 
+    {
+        Tree.initialize();
+    }
+    
+    @Test
+    public void smallTrees()
+    {
+        assertEquals( "()", TreeCodec.toParentheses( new Tree( 1 ) ) );
+        assertEquals( "(())", TreeCodec.toParentheses( new Tree( 2 ) ) );
+        assertEquals( "-(()(()))", TreeCodec.toParentheses( new Tree( -6 ) ) );
+        assertEquals( "2:c", TreeCodec.toSuccinct( new Tree( 2 ) ) );
+        assertEquals( "{\"n\":2,\"children\":[{\"n\":1,\"children\":[]}]}", TreeCodec.toJson( new Tree( 2 ) ) );
+    }
+    
+    @Test
+    public void parenthesesRoundTrip()
+    {
+        for ( int n : INTEGERS )
+        {
+            Tree tree = new Tree( n );
+            assertEquals( n, TreeCodec.fromParentheses( TreeCodec.toParentheses( tree ) ) );
+            assertEquals( n, TreeCodec.fromParentheses( TreeCodec.toCanonicalParentheses( tree ) ) );
+            assertEquals( n, TreeCodec.integer( tree ) );
+        }
+    }
+    
+    @Test
+    public void succinctRoundTrip()
+    {
+        for ( int n : INTEGERS )
+        {
+            assertEquals( n, TreeCodec.fromSuccinct( TreeCodec.toSuccinct( new Tree( n ) ) ) );
+        }
+    }
+    
+    @Test
+    public void everySmallIntegerRoundTrips()
+    {
+        for ( int n = -1000; n <= 10000; n++ )
+        {
+            if ( n != 0 )
+            {
+                Tree tree = new Tree( n );
+                assertEquals( n, TreeCodec.fromParentheses( TreeCodec.toParentheses( tree ) ) );
+                assertEquals( n, TreeCodec.fromSuccinct( TreeCodec.toSuccinct( tree ) ) );
+            }
+        }
+    }
+    
+    @Test
+    public void factoringMatchesTree() throws IOException
+    {
+        for ( int n : INTEGERS )
+        {
+            Tree tree = new Tree( n );
+            StringBuilder parentheses = new StringBuilder();
+            TreeCodec.writeParentheses( n, parentheses );
+            assertEquals( TreeCodec.toParentheses( tree ), parentheses.toString() );
+            StringBuilder json = new StringBuilder();
+            TreeCodec.writeJson( n, json );
+            assertEquals( TreeCodec.toJson( tree ), json.toString() );
+        }
+    }
+    
+    @Test
+    public void factoredFormMatchesTree() throws IOException
+    {
+        for ( String expression : new String[]{ "2^3*3", "10!", "-(6#)^2", "2^4096*3^17" } )
+        {
+            FactoredInteger n = FactoredInteger.parse( expression );
+            Tree tree = new Tree( n );
+            StringBuilder parentheses = new StringBuilder();
+            TreeCodec.writeParentheses( n, parentheses );
+            assertEquals( TreeCodec.toParentheses( tree ), parentheses.toString() );
+            StringBuilder json = new StringBuilder();
+            TreeCodec.writeJson( n, json );
+            assertEquals( TreeCodec.toJson( tree ), json.toString() );
+        }
+        assertTrue( TreeCodec.toJson( new Tree( FactoredInteger.parse( "2^4096*3^17" ) ) ).startsWith( "{\"n\":\"2^4096*3^17\"," ) );
+    }
+    
+    @Test
+    public void tooLargeIsRejected()
+    {
+        Tree tree = new Tree( FactoredInteger.parse( "2^4096" ) );
+        try
+        {
+            TreeCodec.integer( tree );
+            fail( "2^4096 is not an int." );
+        }
+        catch ( IllegalArgumentException expected ) {}
+        try
+        {
+            TreeCodec.fromParentheses( TreeCodec.toParentheses( tree ) );
+            fail( "2^4096 is not an int." );
+        }
+        catch ( IllegalArgumentException expected ) {}
+    }
+    
+    @Test
+    public void malformedIsRejected()
+    {
+        for ( String parentheses : new String[]{ "", "(", "(()", "())", "()()", "(x)" } )
+        {
+            try
+            {
+                TreeCodec.fromParentheses( parentheses );
+                fail( "Accepted " + parentheses );
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+        for ( String succinct : new String[]{ "c", "0:", "2:", "2:z" } )
+        {
+            try
+            {
+                TreeCodec.fromSuccinct( succinct );
+                fail( "Accepted " + succinct );
+            }
+            catch ( IllegalArgumentException expected ) {}
+        }
+    }
+}